@@ -0,0 +1,128 @@
+package org.elasticsearch.plugin.analysis.ik;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.wltea.analyzer.dic.ChangeChannel;
+import org.wltea.analyzer.dic.DictStats;
+import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.dic.Monitor;
+import org.wltea.analyzer.dic.ReloadStats;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 查看本节点IK词典占用内存的统计
+ *
+ * GET /_ik/dict/stats
+ */
+public class RestDictStatsAction extends BaseRestHandler {
+
+    public RestDictStatsAction(Settings settings, RestController controller) {
+        super(settings);
+        controller.registerHandler(RestRequest.Method.GET, "/_ik/dict/stats", this);
+    }
+
+    @Override
+    public String getName() {
+        return "ik_dict_stats_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        return channel -> {
+            Dictionary dictionary;
+            try {
+                dictionary = Dictionary.getSingleton();
+            } catch (IllegalStateException e) {
+                // 本节点还没有创建过IK分词器，词典尚未加载
+                channel.sendResponse(new BytesRestResponse(RestStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+                return;
+            }
+            if (!dictionary.isReady()) {
+                // 词典还在后台加载，此时分词使用核心词典
+                XContentBuilder builder = channel.newBuilder();
+                builder.startObject().field("ready", false).endObject();
+                channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+                return;
+            }
+            List<DictStats> stats = dictionary.getStats();
+            long heapBytes = 0;
+            long mappedBytes = 0;
+            for (DictStats dict : stats) {
+                heapBytes += dict.getHeapBytes();
+                mappedBytes += dict.getMappedBytes();
+            }
+
+            XContentBuilder builder = channel.newBuilder();
+            builder.startObject();
+            builder.field("ready", true);
+            builder.field("heap_bytes", heapBytes);
+            builder.field("mapped_bytes", mappedBytes);
+            builder.startArray("dictionaries");
+            for (DictStats dict : stats) {
+                toXContent(builder, dict);
+            }
+            builder.endArray();
+            builder.startArray("sources");
+            for (DictStats source : dictionary.getSourceStats()) {
+                toXContent(builder, source);
+            }
+            builder.endArray();
+            ReloadStats reload = dictionary.getReloadStats();
+            builder.startObject("reload");
+            builder.field("reloads", reload.getReloads());
+            builder.field("triggers", reload.getTriggers());
+            builder.field("last_absorbed_triggers", reload.getLastAbsorbedTriggers());
+            builder.field("last_locations", reload.getLastLocations());
+            builder.field("last_reload_millis", reload.getLastReloadMillis());
+            builder.field("last_peak_overhead_bytes", reload.getLastPeakOverheadBytes());
+            builder.field("max_peak_overhead_bytes", reload.getMaxPeakOverheadBytes());
+            builder.endObject();
+            builder.startArray("polling");
+            for (Monitor monitor : dictionary.getMonitors()) {
+                builder.startObject();
+                builder.field("location", monitor.getLocation());
+                builder.field("dict", monitor.getDictName());
+                builder.field("state", monitor.getState());
+                builder.field("consecutive_failures", monitor.getConsecutiveFailures());
+                builder.field("next_delay_millis", monitor.getNextDelayMillis());
+                builder.endObject();
+            }
+            builder.endArray();
+            ChangeChannel changeChannel = dictionary.getChangeChannel();
+            if (changeChannel != null) {
+                builder.startObject("channel");
+                builder.field("location", changeChannel.getLocation());
+                builder.field("connected", changeChannel.isConnected());
+                builder.field("events", changeChannel.getEvents());
+                builder.endObject();
+            }
+            builder.endObject();
+            channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+        };
+    }
+
+    private static void toXContent(XContentBuilder builder, DictStats stats) throws IOException {
+        builder.startObject();
+        builder.field("name", stats.getName());
+        if (stats.getSource() != null) {
+            builder.field("source", stats.getSource());
+        }
+        builder.field("structure", stats.getStructure());
+        builder.field("words", stats.getWords());
+        builder.field("nodes", stats.getNodes());
+        builder.field("array_nodes", stats.getArrayNodes());
+        builder.field("map_nodes", stats.getMapNodes());
+        builder.field("max_depth", stats.getMaxDepth());
+        builder.field("heap_bytes", stats.getHeapBytes());
+        builder.field("mapped_bytes", stats.getMappedBytes());
+        builder.endObject();
+    }
+}
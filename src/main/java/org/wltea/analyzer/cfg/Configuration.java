@@ -27,18 +27,39 @@ public class Configuration {
 	//是否启用小写处理
 	private boolean enableLowercase=true;
 
+	//是否使用Aho-Corasick自动机切分中文词
+	private boolean useAhoCorasick;
+
 
 	@Inject
 	public Configuration(Environment env,Settings settings) {
+		this(env, settings, true);
+	}
+
+	private Configuration(Environment env,Settings settings,boolean initial) {
 		this.environment = env;
 		this.settings=settings;
 
 		this.useSmart = settings.get("use_smart", "false").equals("true");
 		this.enableLowercase = settings.get("enable_lowercase", "true").equals("true");
 		this.enableRemoteDict = settings.get("enable_remote_dict", "true").equals("true");
+		this.useAhoCorasick = settings.get("use_aho_corasick", "false").equals("true");
 
-		Dictionary.initial(this);
+		if (initial) {
+			Dictionary.initial(this);
+			if (useAhoCorasick) {
+				//在创建分析器时构建自动机，不在分词线程上构建
+				Dictionary.getSingleton().useMainAutomaton();
+			}
+		}
+
+	}
 
+	/**
+	 * 插件加载时使用的节点级默认配置，不初始化词典
+	 */
+	public static Configuration forNode(Environment env) {
+		return new Configuration(env, Settings.EMPTY, false);
 	}
 
 	public Path getConfigInPluginDir() {
@@ -72,4 +93,16 @@ public class Configuration {
 	public boolean isEnableLowercase() {
 		return enableLowercase;
 	}
+
+	public boolean isUseAhoCorasick() {
+		return useAhoCorasick;
+	}
+
+	public Configuration setUseAhoCorasick(boolean useAhoCorasick) {
+		this.useAhoCorasick = useAhoCorasick;
+		if (useAhoCorasick) {
+			Dictionary.getSingleton().useMainAutomaton();
+		}
+		return this;
+	}
 }
@@ -0,0 +1,60 @@
+package org.wltea.analyzer.core;
+
+import org.wltea.analyzer.dic.AhoCorasickAutomaton;
+
+/**
+ * 基于Aho-Corasick自动机的中文-日韩文子分词器
+ *
+ * 与CJKSegmenter输出相同的词元，但不维护前缀队列：自动机每读入一个字符只推进一个状态，
+ * 再沿输出链接取出以当前字符结尾的全部词，对词前缀重叠很多的文本更快。
+ */
+class AhoCorasickSegmenter implements ISegmenter {
+
+	//子分词器标签
+	static final String SEGMENTER_NAME = "AC_SEGMENTER";
+	//自动机当前节点
+	private int node = AhoCorasickAutomaton.ROOT;
+
+	/* (non-Javadoc)
+	 * @see org.wltea.analyzer.core.ISegmenter#analyze(org.wltea.analyzer.core.AnalyzeContext)
+	 */
+	public void analyze(AnalyzeContext context) {
+		if(CharacterUtil.CHAR_USELESS != context.getCurrentCharType()){
+			//当前文档的词典快照中的自动机
+			AhoCorasickAutomaton automaton = context.getDictionary().getMainAutomaton();
+			this.node = automaton.next(this.node, context.getCurrentChar());
+			//输出以当前字符结尾的全部词，由长到短
+			for(int word = automaton.firstOutput(this.node) ; word != AhoCorasickAutomaton.ROOT ; word = automaton.nextOutput(word)){
+				int length = automaton.length(word);
+				Lexeme newLexeme = new Lexeme(context.getBufferOffset() , context.getCursor() - length + 1 , length , Lexeme.TYPE_CNWORD);
+				context.addLexeme(newLexeme);
+			}
+			//只保留还能继续匹配的前缀
+			this.node = automaton.longestPrefix(this.node);
+
+		}else{
+			//遇到CHAR_USELESS字符
+			this.node = AhoCorasickAutomaton.ROOT;
+		}
+
+		//判断缓冲区是否已经读完
+		if(context.isBufferConsumed()){
+			this.node = AhoCorasickAutomaton.ROOT;
+		}
+
+		//判断是否锁定缓冲区
+		if(this.node == AhoCorasickAutomaton.ROOT){
+			context.unlockBuffer(SEGMENTER_NAME);
+		}else{
+			context.lockBuffer(SEGMENTER_NAME);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.wltea.analyzer.core.ISegmenter#reset()
+	 */
+	public void reset() {
+		this.node = AhoCorasickAutomaton.ROOT;
+	}
+
+}
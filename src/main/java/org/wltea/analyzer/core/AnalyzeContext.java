@@ -33,7 +33,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.wltea.analyzer.cfg.Configuration;
-import org.wltea.analyzer.dic.Dictionary;
+import org.wltea.analyzer.dic.DictionarySnapshot;
 
 /**
  * 
@@ -75,6 +75,8 @@ class AnalyzeContext {
     private LinkedList<Lexeme> results;
 	//分词器配置项
 	private Configuration cfg;
+	//当前文档使用的词典快照
+	private DictionarySnapshot dictionary;
 
     public AnalyzeContext(Configuration configuration){
         this.cfg = configuration;
@@ -105,6 +107,17 @@ class AnalyzeContext {
     int getBufferOffset(){
     	return this.buffOffset;
     }
+
+    /**
+     * 当前文档使用的词典快照，子分词器的全部查询都使用它
+     */
+    DictionarySnapshot getDictionary(){
+    	return this.dictionary;
+    }
+
+    void setDictionary(DictionarySnapshot dictionary){
+    	this.dictionary = dictionary;
+    }
 	
     /**
      * 根据context的上下文情况，填充segmentBuff 
@@ -322,7 +335,7 @@ class AnalyzeContext {
 		while(result != null){
     		//数量词合并
     		this.compound(result);
-    		if(Dictionary.getSingleton().isStopWord(this.segmentBuff ,  result.getBegin() , result.getLength())){
+    		if(this.dictionary.isStopWord(this.segmentBuff ,  result.getBegin() , result.getLength())){
        			//是停止词继续取列表的下一个
     			result = this.results.pollFirst(); 				
     		}else{
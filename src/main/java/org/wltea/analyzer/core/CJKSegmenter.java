@@ -25,11 +25,9 @@
  */
 package org.wltea.analyzer.core;
 
-import org.wltea.analyzer.dic.Dictionary;
-import org.wltea.analyzer.dic.Hit;
+import org.wltea.analyzer.dic.DictTrie;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 
 /**
@@ -39,12 +37,15 @@ class CJKSegmenter implements ISegmenter {
 	
 	//子分词器标签
 	static final String SEGMENTER_NAME = "CJK_SEGMENTER";
-	//待处理的分词hit队列
-	private List<Hit> tmpHits;
+	//待处理的前缀匹配：起始位置及匹配状态
+	private int[] hitBegins;
+	private int[] hitStates;
+	private int hitCount;
 	
 	
 	CJKSegmenter(){
-		this.tmpHits = new LinkedList<Hit>();
+		this.hitBegins = new int[16];
+		this.hitStates = new int[16];
 	}
 
 	/* (non-Javadoc)
@@ -52,62 +53,57 @@ class CJKSegmenter implements ISegmenter {
 	 */
 	public void analyze(AnalyzeContext context) {
 		if(CharacterUtil.CHAR_USELESS != context.getCurrentCharType()){
+			//当前文档的词典快照中的主词典
+			DictTrie trie = context.getDictionary().getMainTrie();
+			char c = context.getCurrentChar();
 			
-			//优先处理tmpHits中的hit
-			if(!this.tmpHits.isEmpty()){
-				//处理词段队列
-				Hit[] tmpArray = this.tmpHits.toArray(new Hit[this.tmpHits.size()]);
-				for(Hit hit : tmpArray){
-					hit = Dictionary.getSingleton().matchWithHit(context.getSegmentBuff(), context.getCursor() , hit);
-					if(hit.isMatch()){
-						//输出当前的词
-						Lexeme newLexeme = new Lexeme(context.getBufferOffset() , hit.getBegin() , context.getCursor() - hit.getBegin() + 1 , Lexeme.TYPE_CNWORD);
-						context.addLexeme(newLexeme);
-						
-						if(!hit.isPrefix()){//不是词前缀，hit不需要继续匹配，移除
-							this.tmpHits.remove(hit);
-						}
-						
-					}else if(hit.isUnmatch()){
-						//hit不是词，移除
-						this.tmpHits.remove(hit);
-					}					
+			//优先处理待处理队列中的前缀
+			int remain = 0;
+			for(int i = 0 ; i < this.hitCount ; i++){
+				int begin = this.hitBegins[i];
+				int state = trie.probe(this.hitStates[i], c);
+				if(DictTrie.isMatch(state)){
+					//输出当前的词
+					Lexeme newLexeme = new Lexeme(context.getBufferOffset() , begin , context.getCursor() - begin + 1 , Lexeme.TYPE_CNWORD);
+					context.addLexeme(newLexeme);
 				}
-			}			
+				if(DictTrie.isPrefix(state)){
+					//仍是词前缀，继续匹配
+					this.hitBegins[remain] = begin;
+					this.hitStates[remain] = state;
+					remain++;
+				}
+			}
+			this.hitCount = remain;
 			
 			//*********************************
 			//再对当前指针位置的字符进行单字匹配
-			Hit singleCharHit = Dictionary.getSingleton().matchInMainDict(context.getSegmentBuff(), context.getCursor(), 1);
-			if(singleCharHit.isMatch()){//首字成词
+			int state = trie.probe(c);
+			if(DictTrie.isMatch(state)){//首字成词
 				//输出当前的词
 				Lexeme newLexeme = new Lexeme(context.getBufferOffset() , context.getCursor() , 1 , Lexeme.TYPE_CNWORD);
 				context.addLexeme(newLexeme);
-
-				//同时也是词前缀
-				if(singleCharHit.isPrefix()){
-					//前缀匹配则放入hit列表
-					this.tmpHits.add(singleCharHit);
-				}
-			}else if(singleCharHit.isPrefix()){//首字为词前缀
-				//前缀匹配则放入hit列表
-				this.tmpHits.add(singleCharHit);
+			}
+			if(DictTrie.isPrefix(state)){//首字为词前缀
+				//前缀匹配则放入队列
+				this.addHit(context.getCursor(), state);
 			}
 			
 
 		}else{
 			//遇到CHAR_USELESS字符
 			//清空队列
-			this.tmpHits.clear();
+			this.hitCount = 0;
 		}
 		
 		//判断缓冲区是否已经读完
 		if(context.isBufferConsumed()){
 			//清空队列
-			this.tmpHits.clear();
+			this.hitCount = 0;
 		}
 		
 		//判断是否锁定缓冲区
-		if(this.tmpHits.size() == 0){
+		if(this.hitCount == 0){
 			context.unlockBuffer(SEGMENTER_NAME);
 			
 		}else{
@@ -115,12 +111,22 @@ class CJKSegmenter implements ISegmenter {
 		}
 	}
 
+	private void addHit(int begin, int state){
+		if(this.hitCount == this.hitBegins.length){
+			this.hitBegins = Arrays.copyOf(this.hitBegins, this.hitCount << 1);
+			this.hitStates = Arrays.copyOf(this.hitStates, this.hitCount << 1);
+		}
+		this.hitBegins[this.hitCount] = begin;
+		this.hitStates[this.hitCount] = state;
+		this.hitCount++;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.wltea.analyzer.core.ISegmenter#reset()
 	 */
 	public void reset() {
 		//清空队列
-		this.tmpHits.clear();
+		this.hitCount = 0;
 	}
 
 }
@@ -24,13 +24,11 @@
  */
 package org.wltea.analyzer.core;
 
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Set;
 
-import org.wltea.analyzer.dic.Dictionary;
-import org.wltea.analyzer.dic.Hit;
+import org.wltea.analyzer.dic.DictTrie;
 
 /**
  * 
@@ -63,14 +61,17 @@ class CN_QuantifierSegmenter implements ISegmenter{
 	 */
 	private int nEnd;
 
-	//待处理的量词hit队列
-	private List<Hit> countHits;
+	//待处理的量词前缀：起始位置及匹配状态
+	private int[] countBegins;
+	private int[] countStates;
+	private int countHits;
 	
 	
 	CN_QuantifierSegmenter(){
 		nStart = -1;
 		nEnd = -1;
-		this.countHits  = new LinkedList<Hit>();
+		this.countBegins = new int[8];
+		this.countStates = new int[8];
 	}
 	
 	/**
@@ -83,7 +84,7 @@ class CN_QuantifierSegmenter implements ISegmenter{
 		this.processCount(context);
 		
 		//判断是否锁定缓冲区
-		if(this.nStart == -1 && this.nEnd == -1	&& countHits.isEmpty()){
+		if(this.nStart == -1 && this.nEnd == -1	&& countHits == 0){
 			//对缓冲区解锁
 			context.unlockBuffer(SEGMENTER_NAME);
 		}else{
@@ -98,7 +99,7 @@ class CN_QuantifierSegmenter implements ISegmenter{
 	public void reset() {
 		nStart = -1;
 		nEnd = -1;
-		countHits.clear();
+		countHits = 0;
 	}
 	
 	/**
@@ -147,59 +148,64 @@ class CN_QuantifierSegmenter implements ISegmenter{
 		}
 		
 		if(CharacterUtil.CHAR_CHINESE == context.getCurrentCharType()){
+			//当前文档的词典快照中的量词词典
+			DictTrie trie = context.getDictionary().getQuantifierTrie();
+			char c = context.getCurrentChar();
 			
-			//优先处理countHits中的hit
-			if(!this.countHits.isEmpty()){
-				//处理词段队列
-				Hit[] tmpArray = this.countHits.toArray(new Hit[this.countHits.size()]);
-				for(Hit hit : tmpArray){
-					hit = Dictionary.getSingleton().matchWithHit(context.getSegmentBuff(), context.getCursor() , hit);
-					if(hit.isMatch()){
-						//输出当前的词
-						Lexeme newLexeme = new Lexeme(context.getBufferOffset() , hit.getBegin() , context.getCursor() - hit.getBegin() + 1 , Lexeme.TYPE_COUNT);
-						context.addLexeme(newLexeme);
-						
-						if(!hit.isPrefix()){//不是词前缀，hit不需要继续匹配，移除
-							this.countHits.remove(hit);
-						}
-						
-					}else if(hit.isUnmatch()){
-						//hit不是词，移除
-						this.countHits.remove(hit);
-					}					
+			//优先处理待处理队列中的量词前缀
+			int remain = 0;
+			for(int i = 0 ; i < this.countHits ; i++){
+				int begin = this.countBegins[i];
+				int state = trie.probe(this.countStates[i], c);
+				if(DictTrie.isMatch(state)){
+					//输出当前的词
+					Lexeme newLexeme = new Lexeme(context.getBufferOffset() , begin , context.getCursor() - begin + 1 , Lexeme.TYPE_COUNT);
+					context.addLexeme(newLexeme);
 				}
-			}				
+				if(DictTrie.isPrefix(state)){
+					//仍是量词前缀，继续匹配
+					this.countBegins[remain] = begin;
+					this.countStates[remain] = state;
+					remain++;
+				}
+			}
+			this.countHits = remain;
 
 			//*********************************
 			//对当前指针位置的字符进行单字匹配
-			Hit singleCharHit = Dictionary.getSingleton().matchInQuantifierDict(context.getSegmentBuff(), context.getCursor(), 1);
-			if(singleCharHit.isMatch()){//首字成量词词
+			int state = trie.probe(c);
+			if(DictTrie.isMatch(state)){//首字成量词词
 				//输出当前的词
 				Lexeme newLexeme = new Lexeme(context.getBufferOffset() , context.getCursor() , 1 , Lexeme.TYPE_COUNT);
 				context.addLexeme(newLexeme);
-
-				//同时也是词前缀
-				if(singleCharHit.isPrefix()){
-					//前缀匹配则放入hit列表
-					this.countHits.add(singleCharHit);
-				}
-			}else if(singleCharHit.isPrefix()){//首字为量词前缀
-				//前缀匹配则放入hit列表
-				this.countHits.add(singleCharHit);
+			}
+			if(DictTrie.isPrefix(state)){//首字为量词前缀
+				//前缀匹配则放入队列
+				this.addCountHit(context.getCursor(), state);
 			}
 			
 			
 		}else{
 			//输入的不是中文字符
 			//清空未成形的量词
-			this.countHits.clear();
+			this.countHits = 0;
 		}
 		
 		//缓冲区数据已经读完，还有尚未输出的量词
 		if(context.isBufferConsumed()){
 			//清空未成形的量词
-			this.countHits.clear();
+			this.countHits = 0;
+		}
+	}
+
+	private void addCountHit(int begin, int state){
+		if(this.countHits == this.countBegins.length){
+			this.countBegins = Arrays.copyOf(this.countBegins, this.countHits << 1);
+			this.countStates = Arrays.copyOf(this.countStates, this.countHits << 1);
 		}
+		this.countBegins[this.countHits] = begin;
+		this.countStates[this.countHits] = state;
+		this.countHits++;
 	}
 	
 	/**
@@ -207,7 +213,7 @@ class CN_QuantifierSegmenter implements ISegmenter{
 	 * @return
 	 */
 	private boolean needCountScan(AnalyzeContext context){
-		if((nStart != -1 && nEnd != -1 ) || !countHits.isEmpty()){
+		if((nStart != -1 && nEnd != -1 ) || countHits > 0){
 			//正在处理中文数词,或者正在处理量词
 			return true;
 		}else{
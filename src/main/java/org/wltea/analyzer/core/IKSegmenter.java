@@ -24,6 +24,7 @@
 package org.wltea.analyzer.core;
 
 import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -64,6 +65,8 @@ public final class IKSegmenter {
 	private void init(){
 		//初始化分词上下文
 		this.context = new AnalyzeContext(configuration);
+		//第一篇文档使用的词典快照
+		this.context.setDictionary(Dictionary.getSingleton().getSnapshot());
 		//加载子分词器
 		this.segmenters = this.loadSegmenters();
 		//加载歧义裁决器
@@ -81,7 +84,11 @@ public final class IKSegmenter {
 		//处理中文数量词的子分词器
 		segmenters.add(new CN_QuantifierSegmenter());
 		//处理中文词的子分词器
-		segmenters.add(new CJKSegmenter());
+		if(configuration.isUseAhoCorasick()){
+			segmenters.add(new AhoCorasickSegmenter());
+		}else{
+			segmenters.add(new CJKSegmenter());
+		}
 		return segmenters;
 	}
 	
@@ -140,6 +147,8 @@ public final class IKSegmenter {
 	public synchronized void reset(Reader input) {
 		this.input = input;
 		context.reset();
+		//每篇文档开始时取一次词典快照，重新加载词典期间整篇文档都使用同一份词典
+		context.setDictionary(Dictionary.getSingleton().getSnapshot());
 		for(ISegmenter segmenter : segmenters){
 			segmenter.reset();
 		}
@@ -0,0 +1,236 @@
+package org.wltea.analyzer.dic;
+
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick多模式匹配自动机
+ *
+ * 在编译后的词典上增加失败链接：节点沿字符转移失败时，跳到与当前匹配串的最长后缀对应的节点继续匹配，
+ * 因此每个字符只需推进一个状态，代价与当前有多少个重叠的词前缀无关。
+ * 节点直接使用词典的节点句柄，goto转移仍由DictTrie.probe完成，自动机只额外保存失败链接和输出链接。
+ * 要求词典为树结构，即每个节点只能由一个前缀到达。
+ */
+public final class AhoCorasickAutomaton {
+
+	//根节点
+	public static final int ROOT = 0;
+
+	//构建自动机的词典
+	private final DictTrie dictionary;
+	//自动机的goto转移所使用的词典
+	private final DictTrie trie;
+
+	//节点的匹配状态，用于继续调用probe
+	private final int[] states;
+	//节点深度，即节点对应前缀的长度
+	private final int[] depths;
+	//失败链接
+	private final int[] fail;
+	//输出链接，指向失败链上最近的成词节点
+	private final int[] output;
+
+	private AhoCorasickAutomaton(DictTrie dictionary, DictTrie trie, int[] states, int[] depths, int[] fail, int[] output) {
+		this.dictionary = dictionary;
+		this.trie = trie;
+		this.states = states;
+		this.depths = depths;
+		this.fail = fail;
+		this.output = output;
+	}
+
+	/**
+	 * 为编译后的词典构建自动机
+	 * @param trie 词典
+	 * @return AhoCorasickAutomaton
+	 */
+	static AhoCorasickAutomaton build(DictTrie dictionary) {
+		//DAWG和FST的节点由多个前缀共享，失败链接没有定义，改用由同一词典编译的双数组Trie
+		boolean tree = dictionary instanceof DoubleArrayTrie || dictionary instanceof MappedDoubleArrayTrie;
+		DictTrie trie = tree ? dictionary : DoubleArrayTrie.compile(DictSegment.decompile(dictionary));
+		return new Builder(dictionary, trie).build();
+	}
+
+	/**
+	 * 自动机所基于的词典
+	 */
+	DictTrie getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * 统计词数、节点数、最大深度和占用的堆内存
+	 * 节点数组按词典的节点句柄索引，字节数按数组长度计算；另行编译了双数组Trie时一并计入
+	 */
+	void collectStats(DictStats.Counter counter) {
+		for (int node = 0; node < this.states.length; node++) {
+			if (this.states[node] == 0) {
+				continue;
+			}
+			counter.nodes++;
+			if (DictTrie.isMatch(this.states[node])) {
+				counter.words++;
+				counter.maxDepth = Math.max(counter.maxDepth, this.depths[node]);
+			}
+		}
+		counter.bytes += 4 * (16 + 4L * this.states.length);
+		if (this.trie != this.dictionary && this.trie instanceof DoubleArrayTrie) {
+			counter.bytes += ((DoubleArrayTrie) this.trie).ramBytesUsed();
+		}
+	}
+
+	/**
+	 * 读入一个字符，推进到新的节点
+	 * @param node 当前节点
+	 * @param c
+	 * @return 新节点
+	 */
+	public int next(int node, char c) {
+		for (;;) {
+			int state = node == ROOT ? this.trie.probe(c) : this.trie.probe(this.states[node], c);
+			if (!DictTrie.isUnmatch(state)) {
+				return state & DictTrie.NODE_MASK;
+			}
+			if (node == ROOT) {
+				return ROOT;
+			}
+			node = this.fail[node];
+		}
+	}
+
+	/**
+	 * 以当前位置结尾的最长的词
+	 * @param node 当前节点
+	 * @return 成词节点，没有词时返回ROOT
+	 */
+	public int firstOutput(int node) {
+		return DictTrie.isMatch(this.states[node]) ? node : this.output[node];
+	}
+
+	/**
+	 * 以当前位置结尾的下一个更短的词
+	 * @param wordNode 成词节点
+	 * @return 成词节点，没有词时返回ROOT
+	 */
+	public int nextOutput(int wordNode) {
+		return this.output[wordNode];
+	}
+
+	/**
+	 * 成词节点对应的词长
+	 */
+	public int length(int wordNode) {
+		return this.depths[wordNode];
+	}
+
+	/**
+	 * 当前节点的失败链上最长的仍可向下匹配的节点
+	 * @param node 当前节点
+	 * @return 节点，没有未完成的词前缀时返回ROOT
+	 */
+	public int longestPrefix(int node) {
+		while (node != ROOT && !DictTrie.isPrefix(this.states[node])) {
+			node = this.fail[node];
+		}
+		return node;
+	}
+
+	/**
+	 * 自动机构造器
+	 *
+	 * 先遍历双数组的全部节点，记录每个节点的状态、父节点和转移字符，再由父节点求出深度。
+	 * 屏蔽词条只清除成词状态，被屏蔽的词经过的节点仍可由probe到达，不在任何词条上也必须记录，否则没有失败链接；
+	 * 再按深度从浅到深计算失败链接：节点的失败链接为父节点的失败链接经同一字符转移到达的节点，
+	 * 较浅的节点总是先完成，因此计算时用到的失败链都已就绪。
+	 */
+	private static class Builder {
+
+		private final DictTrie dictionary;
+		private final DictTrie trie;
+
+		private final int[] states;
+		private final int[] depths;
+		private final int[] parents;
+		private final char[] labels;
+		//已记录的节点
+		private int[] nodes = new int[1 << 12];
+		private int nodeCount;
+		private int maxDepth;
+
+		Builder(DictTrie dictionary, DictTrie trie) {
+			this.dictionary = dictionary;
+			this.trie = trie;
+			int size = trie instanceof DoubleArrayTrie ? ((DoubleArrayTrie) trie).size() : ((MappedDoubleArrayTrie) trie).size();
+			this.states = new int[size];
+			this.depths = new int[size];
+			this.parents = new int[size];
+			this.labels = new char[size];
+		}
+
+		AhoCorasickAutomaton build() {
+			if (this.trie instanceof DoubleArrayTrie) {
+				((DoubleArrayTrie) this.trie).forEachNode(this::collect);
+			} else {
+				((MappedDoubleArrayTrie) this.trie).forEachNode(this::collect);
+			}
+			for (int i = 0; i < this.nodeCount; i++) {
+				this.depth(this.nodes[i]);
+			}
+
+			int[] fail = new int[this.states.length];
+			int[] output = new int[this.states.length];
+			AhoCorasickAutomaton automaton = new AhoCorasickAutomaton(this.dictionary, this.trie, this.states, this.depths, fail, output);
+			for (int node : this.orderByDepth()) {
+				int parent = this.parents[node];
+				int f = parent == ROOT ? ROOT : automaton.next(fail[parent], this.labels[node]);
+				fail[node] = f;
+				output[node] = DictTrie.isMatch(this.states[f]) ? f : output[f];
+			}
+			return automaton;
+		}
+
+		/**
+		 * 记录一个节点
+		 */
+		private void collect(int node, int parent, char label, int state) {
+			this.states[node] = state;
+			this.parents[node] = parent;
+			this.labels[node] = label;
+			if (this.nodeCount == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, this.nodeCount << 1);
+			}
+			this.nodes[this.nodeCount++] = node;
+		}
+
+		/**
+		 * 节点深度，即节点对应前缀的长度，沿父节点求出后记下
+		 */
+		private int depth(int node) {
+			if (node == ROOT) {
+				return 0;
+			}
+			if (this.depths[node] == 0) {
+				this.depths[node] = this.depth(this.parents[node]) + 1;
+				this.maxDepth = Math.max(this.maxDepth, this.depths[node]);
+			}
+			return this.depths[node];
+		}
+
+		/**
+		 * 全部节点按深度计数排序
+		 */
+		private int[] orderByDepth() {
+			int[] start = new int[this.maxDepth + 2];
+			for (int i = 0; i < this.nodeCount; i++) {
+				start[this.depths[this.nodes[i]]]++;
+			}
+			for (int d = 1; d < start.length; d++) {
+				start[d] += start[d - 1];
+			}
+			int[] order = new int[this.nodeCount];
+			for (int i = this.nodeCount - 1; i >= 0; i--) {
+				order[--start[this.depths[this.nodes[i]]]] = this.nodes[i];
+			}
+			return order;
+		}
+	}
+}
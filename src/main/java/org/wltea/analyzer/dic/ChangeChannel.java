@@ -0,0 +1,255 @@
+package org.wltea.analyzer.dic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.SpecialPermission;
+import org.wltea.analyzer.help.ESPluginLoggerFactory;
+
+/**
+ * 远程词典的变更推送通道
+ *
+ * 与词典服务器保持一个长连接，服务器有变化时推送事件，插件立即检查对应的远程词典，不必等到下一次轮询。支持两种协议：
+ *  ①Server-Sent Events：响应的Content-Type为text/event-stream，连接一直保持，每个事件的data为变化的远程词典地址，一行一个；
+ *  ②长轮询：服务器挂起请求直到有变化，返回200，响应内容为变化的地址，一行一个；超时无变化时返回304或204；
+ *    响应的ETag在下一次请求中作为If-None-Match发送，两次请求之间的变化不会丢失。
+ * 事件中没有地址或地址均不是已配置的远程词典时，检查全部远程词典。
+ * 通道连通期间各远程词典不再轮询；连接失败或断开后恢复轮询，并按退避间隔重新连接，重新连通时检查一次全部远程词典。
+ */
+public final class ChangeChannel implements Runnable {
+
+	private static final Logger logger = ESPluginLoggerFactory.getLogger(ChangeChannel.class.getName());
+
+	private static final String EVENT_STREAM = "text/event-stream";
+
+	//长轮询两次请求的最小间隔，毫秒，避免服务器立即返回时反复请求
+	private static final long MIN_LONG_POLL_INTERVAL = 1000;
+
+	private static CloseableHttpClient httpclient = HttpClients.createDefault();
+
+	//通道地址
+	private final String location;
+
+	//连接和重新连接所用的线程，连接期间一直占用
+	private final ScheduledExecutorService executor;
+
+	//重新连接的退避策略
+	private final PollPolicy policy;
+
+	//读超时，毫秒，超过该时间没有收到任何数据即认为连接已断开
+	private final int readTimeout;
+
+	//接收事件的远程词典监控
+	private final List<Monitor> monitors;
+
+	private volatile boolean connected;
+
+	//连续连接失败次数
+	private int failures;
+
+	//收到的事件数
+	private volatile long events;
+
+	//SSE最后一个事件的id，或长轮询最后一次响应的ETag
+	private String lastEventId;
+
+	ChangeChannel(String location, ScheduledExecutorService executor, PollPolicy policy, int readTimeout, List<Monitor> monitors) {
+		this.location = location;
+		this.executor = executor;
+		this.policy = policy;
+		this.readTimeout = readTimeout;
+		this.monitors = monitors;
+	}
+
+	void start() {
+		executor.execute(this);
+	}
+
+	public void run() {
+		long start = System.currentTimeMillis();
+		boolean success = false;
+		try {
+			SpecialPermission.check();
+			success = AccessController.doPrivileged((PrivilegedAction<Boolean>) this::connect);
+		} finally {
+			long delay;
+			if (success) {
+				failures = 0;
+				delay = Math.max(0, MIN_LONG_POLL_INTERVAL - (System.currentTimeMillis() - start));
+			} else {
+				if (connected || failures == 0) {
+					logger.warn("remote dict channel {} unavailable, falling back to polling", location);
+				}
+				connected = false;
+				failures++;
+				delay = policy.nextDelay(failures - 1);
+			}
+			executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 建立一次连接并读取事件，直到服务器结束响应
+	 * @return 长轮询正常返回时为true，连接失败、出错或SSE连接断开时为false
+	 */
+	private boolean connect() {
+		RequestConfig rc = RequestConfig.custom().setConnectionRequestTimeout(10*1000)
+				.setConnectTimeout(10*1000).setSocketTimeout(readTimeout).build();
+		HttpGet get = new HttpGet(location);
+		get.setConfig(rc);
+		get.setHeader("Accept", EVENT_STREAM);
+		if (lastEventId != null) {
+			get.setHeader("Last-Event-ID", lastEventId);
+			get.setHeader("If-None-Match", lastEventId);
+		}
+
+		CloseableHttpResponse response = null;
+		try {
+			response = httpclient.execute(get);
+			int code = response.getStatusLine().getStatusCode();
+			if (code == 304 || code == 204) {
+				// 长轮询超时，没有变化
+				this.onConnected();
+				return true;
+			}
+			if (code != 200) {
+				logger.info("remote dict channel {} return bad code {}", location, code);
+				return false;
+			}
+			HttpEntity entity = response.getEntity();
+			Header contentType = entity.getContentType();
+			BufferedReader in = new BufferedReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8));
+			if (contentType != null && contentType.getValue().toLowerCase().startsWith(EVENT_STREAM)) {
+				this.onConnected();
+				this.readEvents(in);
+				// 事件流不应结束，结束即视为断开
+				return false;
+			}
+			boolean reconnected = this.onConnected();
+			Header eTag = response.getLastHeader("ETag");
+			if (eTag != null) {
+				lastEventId = eTag.getValue();
+			}
+			List<String> locations = new ArrayList<String>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				locations.add(line);
+			}
+			if (!reconnected) {
+				this.dispatch(locations);
+			}
+			return true;
+		} catch (Exception e) {
+			logger.error("remote dict channel {} error!", location, e);
+			return false;
+		} finally {
+			try {
+				if (response != null) {
+					response.close();
+				}
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * 按SSE格式读取事件：空行结束一个事件，data可有多行，以冒号开头的注释行用作心跳
+	 */
+	private void readEvents(BufferedReader in) throws IOException {
+		List<String> data = new ArrayList<String>();
+		boolean hasData = false;
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.isEmpty()) {
+				if (hasData) {
+					this.dispatch(data);
+					data = new ArrayList<String>();
+					hasData = false;
+				}
+				continue;
+			}
+			if (line.startsWith(":")) {
+				continue;
+			}
+			int colon = line.indexOf(':');
+			String field = colon < 0 ? line : line.substring(0, colon);
+			String value = colon < 0 ? "" : line.substring(colon + 1);
+			if (value.startsWith(" ")) {
+				value = value.substring(1);
+			}
+			if ("data".equals(field)) {
+				data.add(value);
+				hasData = true;
+			} else if ("id".equals(field)) {
+				lastEventId = value;
+			}
+		}
+	}
+
+	/**
+	 * @return 是否由断开变为连通，此时已检查过全部远程词典
+	 */
+	private boolean onConnected() {
+		if (connected) {
+			return false;
+		}
+		connected = true;
+		logger.info("remote dict channel {} connected, polling suspended", location);
+		// 断开期间的变化没有推送，检查一次全部远程词典
+		for (Monitor monitor : monitors) {
+			monitor.pollNow();
+		}
+		return true;
+	}
+
+	/**
+	 * 通知变化的远程词典立即检查
+	 */
+	private void dispatch(List<String> locations) {
+		events++;
+		boolean matched = false;
+		for (Monitor monitor : monitors) {
+			for (String changed : locations) {
+				if (monitor.getLocation().equals(changed.trim())) {
+					monitor.pollNow();
+					matched = true;
+					break;
+				}
+			}
+		}
+		if (!matched) {
+			for (Monitor monitor : monitors) {
+				monitor.pollNow();
+			}
+		}
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public boolean isConnected() {
+		return connected;
+	}
+
+	public long getEvents() {
+		return events;
+	}
+}
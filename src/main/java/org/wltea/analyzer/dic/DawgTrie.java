@@ -0,0 +1,241 @@
+package org.wltea.analyzer.dic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 最小化的无环有限状态自动机（DAWG）
+ *
+ * DictSegment只合并词的公共前缀，DAWG同时合并公共后缀：右语言相同的子树（成词状态相同，出边字符和目标都相同）只保留一份。
+ * 节点的出边按字符排序后连续存放，节点n的出边位于[first[n], first[n+1])，转移时二分查找；
+ * 根节点的出边有几千条，从根节点出发的转移改由RootTable按字符直接查表。
+ * 一个节点可以由多个前缀到达，因此不能用于要求树结构的Aho-Corasick自动机。
+ */
+final class DawgTrie implements DictTrie {
+
+	//根节点
+	private static final int ROOT = 0;
+
+	//节点第一条出边的位置，长度为节点数+1
+	private final int[] first;
+	//出边字符
+	private final char[] labels;
+	//出边指向的节点
+	private final int[] targets;
+	//成词节点位图
+	private final long[] finals;
+	//根节点分派表
+	private final RootTable rootTable;
+
+	private DawgTrie(int[] first, char[] labels, int[] targets, long[] finals) {
+		this.first = first;
+		this.labels = labels;
+		this.targets = targets;
+		this.finals = finals;
+		this.rootTable = RootTable.build(c -> this.probe(ROOT, c));
+	}
+
+	@Override
+	public int probe(char c) {
+		return this.rootTable.probe(c);
+	}
+
+	@Override
+	public int probe(int state, char c) {
+		int s = state & NODE_MASK;
+		int low = this.first[s];
+		int high = this.first[s + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = this.labels[mid];
+			if (label < c) {
+				low = mid + 1;
+			} else if (label > c) {
+				high = mid - 1;
+			} else {
+				int t = this.targets[mid];
+				return this.flags(t) | t;
+			}
+		}
+		return UNMATCH;
+	}
+
+	private int flags(int node) {
+		int flags = (this.finals[node >>> 6] & (1L << node)) != 0 ? MATCH : 0;
+		if (this.first[node + 1] > this.first[node]) {
+			flags |= PREFIX;
+		}
+		return flags;
+	}
+
+	@Override
+	public void forEachWord(Consumer<char[]> action) {
+		//深度优先遍历，path[i]为第i层当前所在的出边
+		int[] path = new int[16];
+		char[] buffer = new char[16];
+		int depth = 0;
+		path[0] = this.first[ROOT];
+		while (depth >= 0) {
+			int node = depth == 0 ? ROOT : this.targets[path[depth - 1]];
+			int edge = path[depth];
+			if (edge >= this.first[node + 1]) {
+				//当前节点的出边已经遍历完，回到上一层
+				depth--;
+				if (depth >= 0) {
+					path[depth]++;
+				}
+				continue;
+			}
+			buffer[depth] = this.labels[edge];
+			int target = this.targets[edge];
+			if ((this.finals[target >>> 6] & (1L << target)) != 0) {
+				action.accept(Arrays.copyOf(buffer, depth + 1));
+			}
+			depth++;
+			if (depth == path.length) {
+				path = Arrays.copyOf(path, depth << 1);
+				buffer = Arrays.copyOf(buffer, depth << 1);
+			}
+			path[depth] = this.first[target];
+		}
+	}
+
+	/**
+	 * 节点数
+	 */
+	int nodeCount() {
+		return this.first.length - 1;
+	}
+
+	/**
+	 * 占用的堆内存字节数
+	 */
+	long ramBytesUsed() {
+		return 4L * this.first.length + 2L * this.labels.length + 4L * this.targets.length + 8L * this.finals.length
+				+ this.rootTable.ramBytesUsed();
+	}
+
+	/**
+	 * 将词典树最小化为DAWG
+	 * @param root 词典树根节点
+	 * @return DawgTrie
+	 */
+	static DawgTrie compile(DictSegment root) {
+		return new Builder().build(root);
+	}
+
+	/**
+	 * DAWG构造器
+	 *
+	 * 后序遍历词典树，子节点先于父节点归并为等价类，相同的节点签名（成词状态、出边字符、出边目标的等价类）只登记一次；
+	 * 最后从根节点广度优先为等价类重新编号，使每个节点的出边连续存放。
+	 */
+	private static class Builder {
+
+		//节点签名到等价类编号
+		private final Map<Signature, Integer> registry = new HashMap<Signature, Integer>();
+		//按等价类编号登记的签名
+		private final List<Signature> classes = new ArrayList<Signature>();
+
+		DawgTrie build(DictSegment root) {
+			int rootClass = this.minimize(root);
+
+			//广度优先重新编号，根节点为0
+			int[] order = new int[this.classes.size()];
+			int[] number = new int[this.classes.size()];
+			Arrays.fill(number, -1);
+			number[rootClass] = ROOT;
+			order[0] = rootClass;
+			int count = 1;
+			int edgeCount = 0;
+			for (int i = 0; i < count; i++) {
+				Signature signature = this.classes.get(order[i]);
+				edgeCount += signature.targets.length;
+				for (int target : signature.targets) {
+					if (number[target] == -1) {
+						number[target] = count;
+						order[count++] = target;
+					}
+				}
+			}
+
+			int[] first = new int[count + 1];
+			char[] labels = new char[edgeCount];
+			int[] targets = new int[edgeCount];
+			long[] finals = new long[(count + 63) >>> 6];
+			int edge = 0;
+			for (int node = 0; node < count; node++) {
+				Signature signature = this.classes.get(order[node]);
+				first[node] = edge;
+				if (signature.word) {
+					finals[node >>> 6] |= 1L << node;
+				}
+				for (int i = 0; i < signature.targets.length; i++) {
+					labels[edge] = signature.labels[i];
+					targets[edge] = number[signature.targets[i]];
+					edge++;
+				}
+			}
+			first[count] = edge;
+			return new DawgTrie(first, labels, targets, finals);
+		}
+
+		/**
+		 * 归并节点，返回其等价类编号
+		 */
+		private int minimize(DictSegment segment) {
+			DictSegment[] children = segment.getChildren();
+			char[] labels = new char[children.length];
+			int[] targets = new int[children.length];
+			for (int i = 0; i < children.length; i++) {
+				labels[i] = children[i].getNodeChar();
+				targets[i] = this.minimize(children[i]);
+			}
+			Signature signature = new Signature(segment.isWord(), labels, targets);
+			Integer id = this.registry.get(signature);
+			if (id == null) {
+				id = this.classes.size();
+				this.classes.add(signature);
+				this.registry.put(signature, id);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * 节点签名，签名相同的节点右语言相同，可以合并
+	 */
+	private static final class Signature {
+
+		private final boolean word;
+		private final char[] labels;
+		private final int[] targets;
+		private final int hash;
+
+		Signature(boolean word, char[] labels, int[] targets) {
+			this.word = word;
+			this.labels = labels;
+			this.targets = targets;
+			this.hash = 31 * (31 * Boolean.hashCode(word) + Arrays.hashCode(labels)) + Arrays.hashCode(targets);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return this.hash == other.hash && this.word == other.word
+					&& Arrays.equals(this.labels, other.labels) && Arrays.equals(this.targets, other.targets);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package org.wltea.analyzer.dic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.apache.logging.log4j.Logger;
+import org.wltea.analyzer.help.ESPluginLoggerFactory;
+
+/**
+ * 打包时预编译词典
+ *
+ * 由Maven构建在package阶段之前调用，把插件自带的主词典和量词词典编译为双数组Trie快照，
+ * 随插件一起安装到config/compiled目录。快照头部记录源词典文件的校验和，
+ * 源词典未被修改时启动直接映射快照，不再解析词典文件。
+ * 参数错误或编译失败时抛出异常，由Maven调用时构建失败，单独运行时进程以非0状态退出。
+ */
+public final class DictCompiler {
+
+	private static final Logger logger = ESPluginLoggerFactory.getLogger(DictCompiler.class.getName());
+
+	private DictCompiler() {
+	}
+
+	/**
+	 * @param args 词典目录，输出目录
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("usage: DictCompiler <dict dir> <output dir>");
+		}
+		Path dictDir = Paths.get(args[0]);
+		Path outputDir = Paths.get(args[1]);
+		compile(dictDir.resolve(Dictionary.PATH_DIC_MAIN), outputDir.resolve(Dictionary.SNAPSHOT_MAIN));
+		compile(dictDir.resolve(Dictionary.PATH_DIC_QUANTIFIER), outputDir.resolve(Dictionary.SNAPSHOT_QUANTIFIER));
+	}
+
+	private static void compile(Path source, Path target) throws IOException {
+		if (!Files.isRegularFile(source)) {
+			// 校验和对缺失的文件不报错，先检查源词典
+			throw new NoSuchFileException(source.toString());
+		}
+		long checksum = DictSnapshot.checksum(Collections.singletonList(source));
+		DoubleArrayTrie trie = DoubleArrayTrie.compile(DictSegment.build(DictFileReader.readWords(source)));
+		DictSnapshot.write(target, checksum, trie);
+		logger.info("[Dict Compiling] {} -> {}, double array size {}", source, target, trie.size());
+	}
+}
@@ -0,0 +1,125 @@
+package org.wltea.analyzer.dic;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 词典文件读取
+ *
+ * 将词典文件映射到内存，按块解码UTF-8到可重用的字符缓冲区，在缓冲区中直接切分出词条，
+ * 不为每一行创建String。与逐行读取的结果相同：去掉文件开头的BOM，词条去掉首尾空白，跳过空行。
+ */
+final class DictFileReader {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private DictFileReader() {
+	}
+
+	/**
+	 * 读取词典文件中的全部词条，每个词条复制为独立的数组
+	 * @param file 词典文件
+	 * @return 词条
+	 * @throws IOException
+	 */
+	static List<char[]> readWords(Path file) throws IOException {
+		List<char[]> words = new ArrayList<char[]>();
+		read(file, (buffer, offset, length) -> words.add(Arrays.copyOfRange(buffer, offset, offset + length)));
+		return words;
+	}
+
+	/**
+	 * 读取词典文件中的全部词条
+	 * @param file 词典文件
+	 * @param consumer 接收词条，字符缓冲区在返回后会被重用
+	 * @throws IOException
+	 */
+	static void read(Path file, WordConsumer consumer) throws IOException {
+		MappedByteBuffer bytes;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("dictionary file too large: " + file);
+			}
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		//与InputStreamReader相同，非法的字节替换为替换字符
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+		boolean first = true;
+		boolean endOfInput = false;
+		while (true) {
+			CoderResult result = endOfInput ? decoder.flush(chars) : decoder.decode(bytes, chars, true);
+			if (!endOfInput && result.isUnderflow()) {
+				endOfInput = true;
+				continue;
+			}
+			boolean done = endOfInput && result.isUnderflow();
+			chars.flip();
+			char[] buffer = chars.array();
+			int start = 0;
+			if (first && chars.limit() > 0) {
+				if (buffer[0] == '\uFEFF') {
+					start = 1;
+				}
+				first = false;
+			}
+			//切分缓冲区中的完整行，最后不完整的一行留到下次解码后继续
+			int end = chars.limit();
+			for (int i = start; i < end; i++) {
+				char c = buffer[i];
+				if (c == '\n' || c == '\r') {
+					accept(buffer, start, i, consumer);
+					start = i + 1;
+				}
+			}
+			if (done) {
+				accept(buffer, start, end, consumer);
+				return;
+			}
+			chars.position(start);
+			chars.compact();
+			if (!chars.hasRemaining()) {
+				//一行超过缓冲区长度
+				CharBuffer larger = CharBuffer.allocate(chars.capacity() << 1);
+				chars.flip();
+				larger.put(chars);
+				chars = larger;
+			}
+		}
+	}
+
+	/**
+	 * 与String.trim相同，去掉首尾不大于空格的字符，非空时交给consumer
+	 */
+	private static void accept(char[] buffer, int begin, int end, WordConsumer consumer) {
+		while (begin < end && buffer[begin] <= ' ') {
+			begin++;
+		}
+		while (end > begin && buffer[end - 1] <= ' ') {
+			end--;
+		}
+		if (begin < end) {
+			consumer.accept(buffer, begin, end - begin);
+		}
+	}
+
+	/**
+	 * 接收词条
+	 */
+	interface WordConsumer {
+		void accept(char[] buffer, int offset, int length);
+	}
+}
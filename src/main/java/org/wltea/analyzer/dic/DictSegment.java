@@ -25,29 +25,37 @@
  */
 package org.wltea.analyzer.dic;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 /**
  * 词典树分段，表示词典树的一个分枝
+ *
+ * 词典树发布给查询线程之后不再修改：新建的词典树用fillSegment填充，发布后的修改用copyWith生成新版本。
  */
 class DictSegment implements Comparable<DictSegment>{
 	
-	//公用字典表，存储汉字
-	private static final Map<Character , Character> charMap = new ConcurrentHashMap<Character , Character>(16 , 0.95f);
 	//数组大小上限
 	private static final int ARRAY_LENGTH_LIMIT = 3;
+	//散列表初始容量，必须是2的幂
+	private static final int MAP_INITIAL_CAPACITY = 8;
 
 	
-	//Map存储结构
-	private Map<Character , DictSegment> childrenMap;
-	//数组方式存储结构
+	//数组方式存储结构：有序的子节点字符，及与之一一对应的子节点
+	private char[] childrenKeys;
 	private DictSegment[] childrenArray;
+	//Map方式存储结构：以字符为键的开放寻址散列表，槽位上的子节点为null表示空槽
+	private char[] childrenMapKeys;
+	private DictSegment[] childrenMap;
 	
 	
 	//当前节点上存储的字符
-	private Character nodeChar;
+	private final char nodeChar;
 	//当前节点存储的Segment数目
 	//storeSize <=ARRAY_LENGTH_LIMIT ，使用数组存储， storeSize >ARRAY_LENGTH_LIMIT ,则使用Map存储
 	private int storeSize = 0;
@@ -55,14 +63,11 @@ class DictSegment implements Comparable<DictSegment>{
 	private int nodeState = 0;	
 	
 	
-	DictSegment(Character nodeChar){
-		if(nodeChar == null){
-			throw new IllegalArgumentException("参数为空异常，字符不能为空");
-		}
+	DictSegment(char nodeChar){
 		this.nodeChar = nodeChar;
 	}
 
-	Character getNodeChar() {
+	char getNodeChar() {
 		return nodeChar;
 	}
 	
@@ -72,7 +77,229 @@ class DictSegment implements Comparable<DictSegment>{
 	boolean hasNextNode(){
 		return  this.storeSize > 0;
 	}
+
+	/*
+	 * 判断从根节点到当前节点的路径是否表示一个词
+	 */
+	boolean isWord(){
+		return this.nodeState == 1;
+	}
+
+	/**
+	 * 按字符顺序返回全部子节点
+	 * @return DictSegment[]
+	 */
+	DictSegment[] getChildren(){
+		DictSegment[] segmentArray = this.childrenArray;
+		DictSegment[] segmentMap = this.childrenMap;
+		if(segmentArray != null){
+			return Arrays.copyOf(segmentArray, this.storeSize);
+		}else if(segmentMap != null){
+			DictSegment[] children = new DictSegment[this.storeSize];
+			int i = 0;
+			for(DictSegment segment : segmentMap){
+				if(segment != null){
+					children[i++] = segment;
+				}
+			}
+			Arrays.sort(children);
+			return children;
+		}
+		return new DictSegment[0];
+	}
 	
+	/**
+	 * 词典树的节点数
+	 */
+	int countNodes(){
+		int count = 1;
+		for(DictSegment segment : this.getChildren()){
+			count += segment.countNodes();
+		}
+		return count;
+	}
+
+	/**
+	 * 估算词典树占用的堆内存字节数，按压缩指针计算对象头和引用
+	 */
+	long ramBytesUsed(){
+		long bytes = this.shallowBytes();
+		for(DictSegment segment : this.getChildren()){
+			bytes += segment.ramBytesUsed();
+		}
+		return bytes;
+	}
+
+	/**
+	 * 估算没有与原词典树共享的节点占用的堆内存字节数，即copyWith复制和新建的节点
+	 * 只沿复制过的路径向下查找，共享的子树不再遍历
+	 * @param previous 原词典树中对应的节点，没有时为null
+	 */
+	long unsharedBytes(DictSegment previous){
+		if(this == previous){
+			return 0;
+		}
+		long bytes = this.shallowBytes();
+		for(DictSegment segment : this.getChildren()){
+			DictSegment old = previous == null ? null : previous.lookforSegment(segment.nodeChar);
+			bytes += segment.unsharedBytes(old);
+		}
+		return bytes;
+	}
+
+	/**
+	 * 统计词数、节点数、两种存储方式的节点数、最大深度和占用的堆内存
+	 * @param counter 计数
+	 * @param depth 当前节点的深度，根节点为0
+	 */
+	void collectStats(DictStats.Counter counter , int depth){
+		counter.nodes++;
+		if(this.childrenArray != null){
+			counter.arrayNodes++;
+		}else if(this.childrenMap != null){
+			counter.mapNodes++;
+		}
+		if(this.isWord()){
+			counter.words++;
+			counter.maxDepth = Math.max(counter.maxDepth, depth);
+		}
+		counter.bytes += this.shallowBytes();
+		for(DictSegment segment : this.getChildren()){
+			segment.collectStats(counter, depth + 1);
+		}
+	}
+
+	/**
+	 * 当前节点自身及其子节点数组占用的字节数
+	 */
+	private long shallowBytes(){
+		//对象头12字节，4个引用，1个char，2个int
+		long bytes = 40;
+		if(this.childrenArray != null){
+			bytes += align(16 + 2L * this.childrenKeys.length) + align(16 + 4L * this.childrenArray.length);
+		}else if(this.childrenMap != null){
+			bytes += align(16 + 2L * this.childrenMapKeys.length) + align(16 + 4L * this.childrenMap.length);
+		}
+		return bytes;
+	}
+
+	private static long align(long bytes){
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * 由编译后的词典还原词典树
+	 * @param trie
+	 * @return DictSegment 根节点
+	 */
+	static DictSegment decompile(DictTrie trie){
+		List<char[]> words = new ArrayList<char[]>();
+		trie.forEachWord(words::add);
+		return build(words);
+	}
+
+	/**
+	 * 由词条一次建成词典树
+	 * 词条先按字符顺序排序（已有序时不排序），之后每个节点的子节点恰好按顺序依次产生，
+	 * 节点的全部子节点产生后一次性放入数组或按最终容量建好的散列表，不需要逐词从根节点插入、移动数组和扩容
+	 * @param words 词条，会被排序
+	 * @return DictSegment 根节点
+	 */
+	static DictSegment build(List<char[]> words){
+		if(!isSorted(words)){
+			words.sort(DictSegment::compareWords);
+		}
+		DictSegment root = new DictSegment((char) 0);
+		//path[d]为当前词条路径上深度为d的节点，children[d]收集它已产生的子节点
+		DictSegment[] path = new DictSegment[16];
+		List<List<DictSegment>> children = new ArrayList<List<DictSegment>>();
+		path[0] = root;
+		children.add(new ArrayList<DictSegment>());
+		char[] previous = new char[0];
+		for(char[] word : words){
+			int common = 0;
+			int limit = Math.min(previous.length, word.length);
+			while(common < limit && previous[common] == word[common]){
+				common++;
+			}
+			if(common == word.length){
+				//重复的词条
+				continue;
+			}
+			//上一个词条在公共前缀以下的节点不会再有子节点
+			for(int d = previous.length; d > common; d--){
+				path[d].setChildren(children.get(d));
+			}
+			if(word.length >= path.length){
+				path = Arrays.copyOf(path, word.length + 1);
+			}
+			while(children.size() <= word.length){
+				children.add(new ArrayList<DictSegment>());
+			}
+			for(int d = common + 1; d <= word.length; d++){
+				DictSegment ds = new DictSegment(word[d - 1]);
+				children.get(d - 1).add(ds);
+				path[d] = ds;
+			}
+			path[word.length].nodeState = 1;
+			previous = word;
+		}
+		for(int d = previous.length; d >= 0; d--){
+			path[d].setChildren(children.get(d));
+		}
+		return root;
+	}
+
+	private static boolean isSorted(List<char[]> words){
+		for(int i = 1; i < words.size(); i++){
+			if(compareWords(words.get(i - 1), words.get(i)) > 0){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int compareWords(char[] a, char[] b){
+		int limit = Math.min(a.length, b.length);
+		for(int i = 0; i < limit; i++){
+			if(a[i] != b[i]){
+				return a[i] - b[i];
+			}
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * 一次放入按字符顺序排列的全部子节点，并清空children
+	 */
+	private void setChildren(List<DictSegment> children){
+		int size = children.size();
+		if(size == 0){
+			return;
+		}
+		if(size <= ARRAY_LENGTH_LIMIT){
+			this.childrenKeys = new char[size];
+			this.childrenArray = new DictSegment[size];
+			for(int i = 0; i < size; i++){
+				this.childrenKeys[i] = children.get(i).nodeChar;
+				this.childrenArray[i] = children.get(i);
+			}
+		}else{
+			//与逐个插入时相同，装载因子不超过1/2
+			int capacity = MAP_INITIAL_CAPACITY;
+			while(size * 2 > capacity){
+				capacity <<= 1;
+			}
+			this.childrenMapKeys = new char[capacity];
+			this.childrenMap = new DictSegment[capacity];
+			for(DictSegment ds : children){
+				putSegment(this.childrenMapKeys , this.childrenMap , ds);
+			}
+		}
+		this.storeSize = size;
+		children.clear();
+	}
+
 	/**
 	 * 匹配词段
 	 * @param charArray
@@ -115,26 +342,8 @@ class DictSegment implements Comparable<DictSegment>{
 		//设置hit的当前处理位置
 		searchHit.setEnd(begin);
 
-        Character keyChar = Character.valueOf(charArray[begin]);
-		DictSegment ds = null;
-		
-		//引用实例变量为本地变量，避免查询时遇到更新的同步问题
-		DictSegment[] segmentArray = this.childrenArray;
-		Map<Character , DictSegment> segmentMap = this.childrenMap;		
-		
 		//STEP1 在节点中查找keyChar对应的DictSegment
-		if(segmentArray != null){
-			//在数组中查找
-			DictSegment keySegment = new DictSegment(keyChar);
-			int position = Arrays.binarySearch(segmentArray, 0 , this.storeSize , keySegment);
-			if(position >= 0){
-				ds = segmentArray[position];
-			}
-
-		}else if(segmentMap != null){
-			//在map中查找
-			ds = (DictSegment)segmentMap.get(keyChar);
-		}
+		DictSegment ds = this.lookforSegment(charArray[begin]);
 		
 		//STEP2 找到DictSegment，判断词的匹配状态，是否继续递归，还是返回结果
 		if(ds != null){			
@@ -162,21 +371,112 @@ class DictSegment implements Comparable<DictSegment>{
 		return searchHit;		
 	}
 
+	/**
+	 * 查找本节点下对应keyChar的子节点，不创建对象
+	 * @param keyChar
+	 * @return DictSegment 没有找到返回null
+	 */
+	private DictSegment lookforSegment(char keyChar){
+		//引用实例变量为本地变量，避免查询时遇到更新的同步问题
+		char[] keys = this.childrenKeys;
+		DictSegment[] segmentArray = this.childrenArray;
+		if(segmentArray != null){
+			//在数组中查找
+			int position = Arrays.binarySearch(keys, keyChar);
+			return position >= 0 ? segmentArray[position] : null;
+		}
+		keys = this.childrenMapKeys;
+		DictSegment[] segmentMap = this.childrenMap;
+		if(segmentMap != null){
+			//在散列表中查找
+			int mask = segmentMap.length - 1;
+			for(int slot = hash(keyChar) & mask; ; slot = (slot + 1) & mask){
+				DictSegment ds = segmentMap[slot];
+				if(ds == null){
+					return null;
+				}
+				if(keys[slot] == keyChar){
+					return ds;
+				}
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * 加载填充词典片段
+	 * 只用于尚未发布的词典树
 	 * @param charArray
 	 */
 	void fillSegment(char[] charArray){
 		this.fillSegment(charArray, 0 , charArray.length , 1); 
 	}
 	
+	/**
+	 * 将另一棵词典树中的词全部加入本词典树
+	 * 只用于尚未发布的词典树，source的子树会直接接入本词典树，合并后不能再使用source
+	 * @param source
+	 */
+	void fillSegments(DictSegment source){
+		for(DictSegment child : source.getChildren()){
+			DictSegment ds = this.lookforSegment(child.nodeChar);
+			if(ds == null){
+				//本词典树没有的子树直接接入，不再逐个复制节点
+				this.addSegment(child);
+				continue;
+			}
+			if(child.isWord()){
+				ds.nodeState = 1;
+			}
+			ds.fillSegments(child);
+		}
+	}
+
 	/**
 	 * 屏蔽词典中的一个词
+	 * 只用于尚未发布的词典树
 	 * @param charArray
 	 */
 	void disableSegment(char[] charArray){
 		this.fillSegment(charArray, 0 , charArray.length , 0); 
 	}
+
+	/**
+	 * 以路径复制的方式批量修改词典树，返回新的根节点
+	 * 原词典树保持不变，正在读取原词典树的线程不受影响；
+	 * 新词典树只复制从根节点到被修改节点的路径，其余子树与原词典树共享
+	 * @param words 词条
+	 * @param enabled 1 加入词条，0 屏蔽词条
+	 * @return DictSegment 新的根节点
+	 */
+	DictSegment copyWith(Collection<char[]> words , int enabled){
+		//本次修改中复制或新建的节点，可以直接修改，同一批词条中每个节点最多复制一次
+		Set<DictSegment> owned = Collections.newSetFromMap(new IdentityHashMap<DictSegment, Boolean>());
+		DictSegment root = this.copy();
+		owned.add(root);
+		for(char[] charArray : words){
+			DictSegment ds = root;
+			for(int i = 0 ; ds != null && i < charArray.length ; i++){
+				DictSegment child = ds.lookforSegment(charArray[i]);
+				if(child == null){
+					//屏蔽不存在的词，无需修改
+					child = ds.lookforSegment(charArray[i] , enabled);
+					if(child != null){
+						owned.add(child);
+					}
+				}else if(!owned.contains(child)){
+					child = child.copy();
+					ds.replaceSegment(child);
+					owned.add(child);
+				}
+				ds = child;
+			}
+			if(ds != null && ds != root){
+				ds.nodeState = enabled;
+			}
+		}
+		return root;
+	}
 	
 	/**
 	 * 加载填充词典片段
@@ -185,15 +485,8 @@ class DictSegment implements Comparable<DictSegment>{
 	 * @param length
 	 * @param enabled
 	 */
-	private synchronized void fillSegment(char[] charArray , int begin , int length , int enabled){
-		//获取字典表中的汉字对象
-		Character beginChar = Character.valueOf(charArray[begin]);
-		Character keyChar = charMap.get(beginChar);
-		//字典中没有该字，则将其添加入字典
-		if(keyChar == null){
-			charMap.put(beginChar, beginChar);
-			keyChar = beginChar;
-		}
+	private void fillSegment(char[] charArray , int begin , int length , int enabled){
+		char keyChar = charArray[begin];
 		
 		//搜索当前节点的存储，查询对应keyChar的keyChar，如果没有则创建
 		DictSegment ds = lookforSegment(keyChar , enabled);
@@ -217,100 +510,133 @@ class DictSegment implements Comparable<DictSegment>{
 	 * @param create  =1如果没有找到，则创建新的segment ; =0如果没有找到，不创建，返回null
 	 * @return
 	 */
-	private DictSegment lookforSegment(Character keyChar ,  int create){
+	private DictSegment lookforSegment(char keyChar ,  int create){
 		
-		DictSegment ds = null;
-
-		if(this.storeSize <= ARRAY_LENGTH_LIMIT){
-			//获取数组容器，如果数组未创建则创建数组
-			DictSegment[] segmentArray = getChildrenArray();			
-			//搜寻数组
-			DictSegment keySegment = new DictSegment(keyChar);
-			int position = Arrays.binarySearch(segmentArray, 0 , this.storeSize, keySegment);
-			if(position >= 0){
-				ds = segmentArray[position];
+		DictSegment ds = this.lookforSegment(keyChar);
+		if(ds != null || create != 1){
+			return ds;
+		}
+		return this.addSegment(new DictSegment(keyChar));
+	}
+
+	/**
+	 * 加入一个本节点下还没有的子节点
+	 * @param ds
+	 * @return 加入的子节点
+	 */
+	private DictSegment addSegment(DictSegment ds){
+		char keyChar = ds.nodeChar;
+		if(this.storeSize < ARRAY_LENGTH_LIMIT){
+			//数组容量未满，使用数组存储
+			//新数组填充完毕后再替换引用，查询线程看到的总是有序的完整数组
+			char[] keys = new char[this.storeSize + 1];
+			DictSegment[] segmentArray = new DictSegment[this.storeSize + 1];
+			int position = 0;
+			if(this.childrenArray != null){
+				position = -Arrays.binarySearch(this.childrenKeys, 0 , this.storeSize , keyChar) - 1;
+				System.arraycopy(this.childrenKeys, 0, keys, 0, position);
+				System.arraycopy(this.childrenArray, 0, segmentArray, 0, position);
+				System.arraycopy(this.childrenKeys, position, keys, position + 1, this.storeSize - position);
+				System.arraycopy(this.childrenArray, position, segmentArray, position + 1, this.storeSize - position);
 			}
-		
-			//遍历数组后没有找到对应的segment
-			if(ds == null && create == 1){
-				ds = keySegment;
-				if(this.storeSize < ARRAY_LENGTH_LIMIT){
-					//数组容量未满，使用数组存储
-					segmentArray[this.storeSize] = ds;
-					//segment数目+1
-					this.storeSize++;
-					Arrays.sort(segmentArray , 0 , this.storeSize);
-					
-				}else{
-					//数组容量已满，切换Map存储
-					//获取Map容器，如果Map未创建,则创建Map
-					Map<Character , DictSegment> segmentMap = getChildrenMap();
-					//将数组中的segment迁移到Map中
-					migrate(segmentArray ,  segmentMap);
-					//存储新的segment
-					segmentMap.put(keyChar, ds);
-					//segment数目+1 ，  必须在释放数组前执行storeSize++ ， 确保极端情况下，不会取到空的数组
-					this.storeSize++;
-					//释放当前的数组引用
-					this.childrenArray = null;
-				}
+			keys[position] = keyChar;
+			segmentArray[position] = ds;
+			this.childrenKeys = keys;
+			this.childrenArray = segmentArray;
+			//segment数目+1
+			this.storeSize++;
+
+		}else if(this.childrenMap == null){
+			//数组容量已满，切换Map存储
+			//将数组中的segment迁移到Map中
+			migrate(new char[MAP_INITIAL_CAPACITY] , new DictSegment[MAP_INITIAL_CAPACITY]);
+			//存储新的segment
+			putSegment(this.childrenMapKeys , this.childrenMap , ds);
+			//segment数目+1 ，  必须在释放数组前执行storeSize++ ， 确保极端情况下，不会取到空的数组
+			this.storeSize++;
+			//释放当前的数组引用
+			this.childrenArray = null;
+			this.childrenKeys = null;
 
-			}			
-			
 		}else{
-			//获取Map容器，如果Map未创建,则创建Map
-			Map<Character , DictSegment> segmentMap = getChildrenMap();
-			//搜索Map
-			ds = (DictSegment)segmentMap.get(keyChar);
-			if(ds == null && create == 1){
-				//构造新的segment
-				ds = new DictSegment(keyChar);
-				segmentMap.put(keyChar , ds);
-				//当前节点存储segment数目+1
-				this.storeSize ++;
+			//装载因子超过1/2时扩容
+			if((this.storeSize + 1) * 2 > this.childrenMap.length){
+				int capacity = this.childrenMap.length * 2;
+				migrate(new char[capacity] , new DictSegment[capacity]);
 			}
+			putSegment(this.childrenMapKeys , this.childrenMap , ds);
+			//当前节点存储segment数目+1
+			this.storeSize ++;
 		}
 
 		return ds;
 	}
 	
-	
 	/**
-	 * 获取数组容器
-	 * 线程同步方法
+	 * 复制当前节点，子节点引用与原节点共享
 	 */
-	private DictSegment[] getChildrenArray(){
-		synchronized(this){
-			if(this.childrenArray == null){
-					this.childrenArray = new DictSegment[ARRAY_LENGTH_LIMIT];
-			}
+	private DictSegment copy(){
+		DictSegment ds = new DictSegment(this.nodeChar);
+		ds.childrenKeys = this.childrenKeys == null ? null : this.childrenKeys.clone();
+		ds.childrenArray = this.childrenArray == null ? null : this.childrenArray.clone();
+		ds.childrenMapKeys = this.childrenMapKeys == null ? null : this.childrenMapKeys.clone();
+		ds.childrenMap = this.childrenMap == null ? null : this.childrenMap.clone();
+		ds.storeSize = this.storeSize;
+		ds.nodeState = this.nodeState;
+		return ds;
+	}
+
+	/**
+	 * 用字符相同的新节点替换已有的子节点
+	 */
+	private void replaceSegment(DictSegment segment){
+		if(this.childrenArray != null){
+			this.childrenArray[Arrays.binarySearch(this.childrenKeys , 0 , this.storeSize , segment.nodeChar)] = segment;
+			return;
+		}
+		int mask = this.childrenMap.length - 1;
+		int slot = hash(segment.nodeChar) & mask;
+		while(this.childrenMapKeys[slot] != segment.nodeChar || this.childrenMap[slot] == null){
+			slot = (slot + 1) & mask;
 		}
-		return this.childrenArray;
+		this.childrenMap[slot] = segment;
 	}
-	
+
 	/**
-	 * 获取Map容器
-	 * 线程同步方法
-	 */	
-	private Map<Character , DictSegment> getChildrenMap(){
-		synchronized(this){
-			if(this.childrenMap == null){
-				this.childrenMap = new ConcurrentHashMap<Character, DictSegment>(ARRAY_LENGTH_LIMIT * 2,0.8f);
+	 * 将现有的子节点迁移到新的散列表中，迁移完毕后再替换引用
+	 */
+	private void migrate(char[] keys , DictSegment[] segmentMap){
+		DictSegment[] oldSegments = this.childrenArray != null ? this.childrenArray : this.childrenMap;
+		if(oldSegments != null){
+			for(DictSegment segment : oldSegments){
+				if(segment != null){
+					putSegment(keys , segmentMap , segment);
+				}
 			}
 		}
-		return this.childrenMap;
+		this.childrenMapKeys = keys;
+		this.childrenMap = segmentMap;
 	}
-	
+
 	/**
-	 * 将数组中的segment迁移到Map中
-	 * @param segmentArray
+	 * 向散列表中放入子节点，调用方保证有空槽且不存在相同的键
 	 */
-	private void migrate(DictSegment[] segmentArray , Map<Character , DictSegment> segmentMap){
-		for(DictSegment segment : segmentArray){
-			if(segment != null){
-				segmentMap.put(segment.nodeChar, segment);
-			}
+	private static void putSegment(char[] keys , DictSegment[] segmentMap , DictSegment segment){
+		int mask = segmentMap.length - 1;
+		int slot = hash(segment.nodeChar) & mask;
+		while(segmentMap[slot] != null){
+			slot = (slot + 1) & mask;
 		}
+		keys[slot] = segment.nodeChar;
+		segmentMap[slot] = segment;
+	}
+
+	/**
+	 * 汉字编码连续，乘以黄金分割常数打散到高位后再取用
+	 */
+	private static int hash(char keyChar){
+		int h = keyChar * 0x9E3779B9;
+		return h ^ (h >>> 16);
 	}
 
 	/**
@@ -320,7 +646,7 @@ class DictSegment implements Comparable<DictSegment>{
 	 */
 	public int compareTo(DictSegment o) {
 		//对当前节点存储的char进行比较
-		return this.nodeChar.compareTo(o.nodeChar);
+		return Character.compare(this.nodeChar, o.nodeChar);
 	}
 	
 }
@@ -0,0 +1,185 @@
+package org.wltea.analyzer.dic;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 编译后词典的二进制快照
+ *
+ * 文件格式（小端序）：
+ * <pre>
+ * int   魔数 IKDS
+ * int   格式版本
+ * long  源词典文件指纹，与当前词典文件不一致时快照作废
+ * int   双数组长度 n
+ * int   保留
+ * char[65536] 字符编码表
+ * int[n] base
+ * int[n] check
+ * </pre>
+ * 打开快照时只做内存映射和头部校验，词典直接在映射区上查询，不再解析词典文件。
+ * 运行时写入的快照以{@link #fingerprint}为指纹；打包时预编译的快照随插件安装到其他机器，
+ * 修改时间不再可靠，以{@link #checksum}为指纹。
+ */
+final class DictSnapshot {
+
+	private static final int MAGIC = 0x494B4453;
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 24;
+	private static final int CODES_LENGTH = (Character.MAX_VALUE + 1) * 2;
+
+	private DictSnapshot() {
+	}
+
+	/**
+	 * 计算源词典文件的指纹：路径、大小、修改时间、内容的CRC32
+	 * 只比较修改时间时，部署工具保留修改时间覆盖文件会被误认为未变化
+	 * @param sources 源词典文件
+	 * @return 指纹
+	 */
+	static long fingerprint(List<Path> sources) {
+		long stamp = VERSION;
+		for (Path file : sources) {
+			stamp = stamp * 31 + file.toAbsolutePath().toString().hashCode();
+			try {
+				BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+				stamp = stamp * 31 + attrs.size();
+				stamp = stamp * 31 + attrs.lastModifiedTime().toMillis();
+				stamp = stamp * 31 + crc(file);
+			} catch (IOException e) {
+				//文件不存在
+				stamp = stamp * 31 - 1;
+			}
+		}
+		return stamp;
+	}
+
+	/**
+	 * 在指纹中加入一个远程词典的地址和下载到的词条
+	 * @param stamp 本地词典文件及之前的远程词典的指纹
+	 * @param location 远程词典地址
+	 * @param words 下载到的词条，按下载顺序
+	 * @return 指纹
+	 */
+	static long fingerprint(long stamp, String location, List<char[]> words) {
+		CRC32 crc = new CRC32();
+		for (char[] word : words) {
+			for (char c : word) {
+				crc.update(c >>> 8);
+				crc.update(c);
+			}
+			crc.update('\n');
+		}
+		stamp = stamp * 31 + location.hashCode();
+		stamp = stamp * 31 + words.size();
+		return stamp * 31 + crc.getValue();
+	}
+
+	/**
+	 * 计算源词典文件内容的校验和：大小、CRC32
+	 * @param sources 源词典文件
+	 * @return 校验和
+	 */
+	static long checksum(List<Path> sources) throws IOException {
+		long stamp = VERSION;
+		for (Path file : sources) {
+			if (!Files.isRegularFile(file)) {
+				stamp = stamp * 31 - 1;
+				continue;
+			}
+			stamp = stamp * 31 + Files.size(file);
+			stamp = stamp * 31 + crc(file);
+		}
+		return stamp;
+	}
+
+	private static long crc(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			CRC32 crc = new CRC32();
+			crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			return crc.getValue();
+		}
+	}
+
+	/**
+	 * 映射快照文件
+	 * @param file 快照文件
+	 * @param stamp 当前源词典文件的指纹
+	 * @return 快照不存在、格式不符或已过期时返回null
+	 */
+	static MappedDoubleArrayTrie open(Path file, long stamp) throws IOException {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER_LENGTH + CODES_LENGTH) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != stamp) {
+				return null;
+			}
+			int size = buffer.getInt(16);
+			if (size <= 0 || length != HEADER_LENGTH + CODES_LENGTH + 8L * size) {
+				return null;
+			}
+			int offset = HEADER_LENGTH;
+			ByteBuffer codes = slice(buffer, offset, CODES_LENGTH);
+			offset += CODES_LENGTH;
+			ByteBuffer base = slice(buffer, offset, 4 * size);
+			offset += 4 * size;
+			ByteBuffer check = slice(buffer, offset, 4 * size);
+			return new MappedDoubleArrayTrie(codes.asCharBuffer(), base.asIntBuffer(), check.asIntBuffer());
+		}
+	}
+
+	/**
+	 * 写入快照文件
+	 * 先写临时文件再原子替换，已映射旧快照的进程不受影响
+	 * @param file 快照文件
+	 * @param stamp 源词典文件的指纹
+	 * @param trie 编译后的词典
+	 */
+	static void write(Path file, long stamp, DoubleArrayTrie trie) throws IOException {
+		int size = trie.size();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + CODES_LENGTH + 8 * size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(stamp).putInt(size).putInt(0);
+		buffer.asCharBuffer().put(trie.codes());
+		((Buffer) buffer).position(HEADER_LENGTH + CODES_LENGTH);
+		buffer.asIntBuffer().put(trie.base());
+		((Buffer) buffer).position(HEADER_LENGTH + CODES_LENGTH + 4 * size);
+		buffer.asIntBuffer().put(trie.check());
+		((Buffer) buffer).rewind();
+
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		((Buffer) duplicate).position(offset);
+		((Buffer) duplicate).limit(offset + length);
+		return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,169 @@
+package org.wltea.analyzer.dic;
+
+/**
+ * 词典的内存统计
+ *
+ * 词典树（tree）给出节点数、数组方式和散列表方式存储子节点的节点数；
+ * 编译后的结构（dat、mapped_dat、dawg、fst、stopword_set、aho_corasick）给出结构自身的节点或槽位数。
+ * 字节数均为估算值，映射到内存的快照不占用堆内存，单独计入mappedBytes。
+ */
+public final class DictStats {
+
+	static final String TREE = "tree";
+	static final String DAT = "dat";
+	static final String MAPPED_DAT = "mapped_dat";
+	static final String DAWG = "dawg";
+	static final String FST = "fst";
+	static final String STOPWORD_SET = "stopword_set";
+	static final String AHO_CORASICK = "aho_corasick";
+
+	//词典名称：main、quantifier、stopword
+	private final String name;
+	//词典来源，词典文件路径或远程词典地址，整个词典的统计为null
+	private final String source;
+	//存储结构
+	private final String structure;
+	private final long words;
+	private final long nodes;
+	private final long arrayNodes;
+	private final long mapNodes;
+	private final int maxDepth;
+	private final long heapBytes;
+	private final long mappedBytes;
+
+	private DictStats(String name, String source, String structure, long words, long nodes, long arrayNodes,
+			long mapNodes, int maxDepth, long heapBytes, long mappedBytes) {
+		this.name = name;
+		this.source = source;
+		this.structure = structure;
+		this.words = words;
+		this.nodes = nodes;
+		this.arrayNodes = arrayNodes;
+		this.mapNodes = mapNodes;
+		this.maxDepth = maxDepth;
+		this.heapBytes = heapBytes;
+		this.mappedBytes = mappedBytes;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public String getStructure() {
+		return structure;
+	}
+
+	public long getWords() {
+		return words;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getArrayNodes() {
+		return arrayNodes;
+	}
+
+	public long getMapNodes() {
+		return mapNodes;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public long getHeapBytes() {
+		return heapBytes;
+	}
+
+	public long getMappedBytes() {
+		return mappedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return name + (source == null ? "" : " [" + source + "]") + " " + structure
+				+ ": words " + words + ", nodes " + nodes + " (array " + arrayNodes + ", map " + mapNodes + ")"
+				+ ", max depth " + maxDepth + ", heap " + heapBytes + " bytes, mapped " + mappedBytes + " bytes";
+	}
+
+	/**
+	 * 统计词典树
+	 */
+	static DictStats of(String name, String source, DictSegment root) {
+		Counter counter = new Counter();
+		root.collectStats(counter, 0);
+		return new DictStats(name, source, TREE, counter.words, counter.nodes, counter.arrayNodes,
+				counter.mapNodes, counter.maxDepth, counter.bytes, 0);
+	}
+
+	/**
+	 * 统计编译后的词典
+	 */
+	static DictStats of(String name, DictTrie trie) {
+		Counter counter = new Counter();
+		trie.forEachWord(word -> {
+			counter.words++;
+			counter.maxDepth = Math.max(counter.maxDepth, word.length);
+		});
+		String structure;
+		long nodes;
+		long heapBytes = 0;
+		long mappedBytes = 0;
+		if (trie instanceof DoubleArrayTrie) {
+			structure = DAT;
+			nodes = ((DoubleArrayTrie) trie).size();
+			heapBytes = ((DoubleArrayTrie) trie).ramBytesUsed();
+		} else if (trie instanceof MappedDoubleArrayTrie) {
+			structure = MAPPED_DAT;
+			nodes = ((MappedDoubleArrayTrie) trie).size();
+			mappedBytes = ((MappedDoubleArrayTrie) trie).mappedBytes();
+		} else if (trie instanceof DawgTrie) {
+			structure = DAWG;
+			nodes = ((DawgTrie) trie).nodeCount();
+			heapBytes = ((DawgTrie) trie).ramBytesUsed();
+		} else if (trie instanceof FstTrie) {
+			structure = FST;
+			nodes = ((FstTrie) trie).nodeCount();
+			heapBytes = ((FstTrie) trie).ramBytesUsed();
+		} else {
+			structure = trie.getClass().getSimpleName();
+			nodes = 0;
+		}
+		return new DictStats(name, null, structure, counter.words, nodes, 0, 0, counter.maxDepth, heapBytes, mappedBytes);
+	}
+
+	/**
+	 * 统计停止词集合
+	 */
+	static DictStats of(String name, StopWordSet stopWords) {
+		return new DictStats(name, null, STOPWORD_SET, stopWords.size(), stopWords.size(), 0, 0,
+				stopWords.maxLength(), stopWords.ramBytesUsed(), 0);
+	}
+
+	/**
+	 * 统计Aho-Corasick自动机
+	 */
+	static DictStats of(String name, AhoCorasickAutomaton automaton) {
+		Counter counter = new Counter();
+		automaton.collectStats(counter);
+		return new DictStats(name, null, AHO_CORASICK, counter.words, counter.nodes, 0, 0, counter.maxDepth, counter.bytes, 0);
+	}
+
+	/**
+	 * 遍历词典时的计数
+	 */
+	static final class Counter {
+		long words;
+		long nodes;
+		long arrayNodes;
+		long mapNodes;
+		int maxDepth;
+		long bytes;
+	}
+}
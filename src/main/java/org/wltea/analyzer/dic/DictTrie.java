@@ -0,0 +1,74 @@
+package org.wltea.analyzer.dic;
+
+import java.util.function.Consumer;
+
+/**
+ * 编译后的只读词典
+ *
+ * 匹配结果用一个int表示：低30位为节点句柄，最高两位分别表示成词、为词前缀。
+ * 前缀匹配时，把结果原样传回probe(int, char)即可继续向下匹配，整个匹配过程不创建对象。
+ */
+public interface DictTrie {
+
+	//不匹配
+	int UNMATCH = 0;
+	//完全匹配
+	int MATCH = 0x40000000;
+	//前缀匹配
+	int PREFIX = 0x80000000;
+	//节点句柄
+	int NODE_MASK = 0x3FFFFFFF;
+
+	/**
+	 * 从根节点匹配一个字符
+	 * @param c
+	 * @return 匹配状态
+	 */
+	int probe(char c);
+
+	/**
+	 * 从前缀匹配的状态继续匹配下一个字符
+	 * 对不是前缀匹配的状态调用，返回UNMATCH
+	 * @param state 上一次匹配返回的状态
+	 * @param c
+	 * @return 匹配状态
+	 */
+	int probe(int state, char c);
+
+	/**
+	 * 从根节点匹配词段
+	 * @param charArray
+	 * @param begin
+	 * @param length
+	 * @return 匹配状态
+	 */
+	default int probe(char[] charArray, int begin, int length) {
+		int state = this.probe(charArray[begin]);
+		for (int i = begin + 1, end = begin + length; i < end; i++) {
+			if (!isPrefix(state)) {
+				return UNMATCH;
+			}
+			state = this.probe(state, charArray[i]);
+		}
+		return state;
+	}
+
+	/**
+	 * 遍历词典中的全部词条，顺序不定
+	 * 用于从编译后的词典还原可修改的词典树
+	 * @param action
+	 */
+	void forEachWord(Consumer<char[]> action);
+
+	static boolean isMatch(int state) {
+		return (state & MATCH) != 0;
+	}
+
+	static boolean isPrefix(int state) {
+		return (state & PREFIX) != 0;
+	}
+
+	static boolean isUnmatch(int state) {
+		return (state & (MATCH | PREFIX)) == 0;
+	}
+}
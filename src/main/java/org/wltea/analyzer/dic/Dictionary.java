@@ -34,14 +34,25 @@ import java.io.InputStreamReader;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.Files;
 import java.nio.file.FileVisitResult;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -67,13 +78,85 @@ public class Dictionary {
 	/*
 	 * 词典单子实例
 	 */
-	private static Dictionary singleton;
+	private static volatile Dictionary singleton;
 
+	/*
+	 * 主词典树，只由写线程访问，从快照加载时为空，需要修改词典时再由_MainTrie还原
+	 * 查询线程只读取发布的快照，不会看到修改到一半的词典树
+	 */
 	private DictSegment _MainDict;
 
-	private DictSegment _QuantifierDict;
+	/*
+	 * 写锁，只在修改词典的线程之间互斥，查询线程从不加锁
+	 */
+	private final Object writeLock = new Object();
+
+	/*
+	 * 由主词典编译的双数组Trie，与_QuantifierTrie、_StopWords一起由修改词典的线程替换，
+	 * 替换后通过publishSnapshot发布给查询线程
+	 */
+	private volatile DictTrie _MainTrie;
+
+	/*
+	 * 查询使用的词典快照，主词典、量词词典、停止词任一变化后整体重新发布
+	 */
+	private volatile DictionarySnapshot snapshot;
+
+	/*
+	 * 已发布的快照版本号，由publishLock保护
+	 */
+	private long snapshotVersion;
+
+	private final Object publishLock = new Object();
+
+	/*
+	 * 有分词器使用主词典的Aho-Corasick自动机，此后发布快照前都先为新的主词典构建自动机
+	 */
+	private volatile boolean mainAutomatonUsed;
+
+	private volatile DictTrie _QuantifierTrie;
+
+	private volatile StopWordSet _StopWords;
+
+	/*
+	 * 各个远程扩展词典上次下载到的词条，远程词典更新时与新内容比较，只增删变化的词条
+	 */
+	private final Map<String, Set<String>> remoteMainWords = new ConcurrentHashMap<String, Set<String>>();
+
+	/*
+	 * 合并远程词典的变更通知，配置了远程词典时创建
+	 */
+	private volatile ReloadCoordinator reloadCoordinator;
+
+	/*
+	 * 远程词典的监控，每个地址一个
+	 */
+	private final List<Monitor> monitors = new CopyOnWriteArrayList<Monitor>();
+
+	/*
+	 * 远程词典的变更推送通道，配置了remote_dict_channel时创建
+	 */
+	private volatile ChangeChannel changeChannel;
+
+	/*
+	 * 加载主词典时建立的词典树和编译结果的估算字节数，在另一个实例中重新加载时即为峰值内存开销
+	 */
+	private long mainBuildBytes;
+
+	/*
+	 * 停止词各个来源（词典文件、远程词典）的词条，远程停止词典更新时只替换该来源的词条后重新编译
+	 */
+	private volatile Map<String, List<char[]>> stopWordSources = Collections.emptyMap();
 
-	private DictSegment _StopWords;
+	/*
+	 * 各个词典文件和远程词典单独加载时的统计，随词典重新加载整体替换
+	 */
+	private volatile List<DictStats> _SourceStats = new CopyOnWriteArrayList<DictStats>();
+
+	/*
+	 * 词典全部加载完成，异步初始化时由后台加载线程完成
+	 */
+	private final CompletableFuture<Void> loaded = new CompletableFuture<Void>();
 
 	/**
 	 * 配置对象
@@ -84,23 +167,108 @@ public class Dictionary {
 
 	private static ScheduledExecutorService pool = Executors.newScheduledThreadPool(1);
 
-	private static final String PATH_DIC_MAIN = "main.dic";
-	private static final String PATH_DIC_SURNAME = "surname.dic";
-	private static final String PATH_DIC_QUANTIFIER = "quantifier.dic";
-	private static final String PATH_DIC_SUFFIX = "suffix.dic";
-	private static final String PATH_DIC_PREP = "preposition.dic";
+	/*
+	 * 轮询远程词典的线程池，线程数即同时进行的请求数上限，加载时按配置创建
+	 */
+	private static ScheduledExecutorService pollPool;
+
+	/*
+	 * 加载词典的并行度，每次加载新建一个线程池，加载完毕后关闭
+	 */
+	private static final int LOAD_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	/*
+	 * 词条数超过该值的词典文件按首字分片并行建树
+	 */
+	private static final int PARTITION_THRESHOLD = 1 << 14;
+
+	/*
+	 * 一次增删的词条数不超过该值时直接修改双数组Trie，超过时重新编译更快
+	 * 自带主词典上增加2048个词条约170ms，重新编译约950ms，两者在8000个左右持平
+	 */
+	private static final int INCREMENTAL_UPDATE_LIMIT = 1 << 11;
+
+	/*
+	 * 远程词典变更通知的默认静默窗口，毫秒
+	 */
+	private static final long DEFAULT_RELOAD_QUIET_WINDOW = 3000;
+
+	/*
+	 * 远程词典轮询的默认配置：间隔和最大退避间隔单位为秒，抖动为间隔的百分比
+	 */
+	private static final long DEFAULT_POLL_INTERVAL = 60;
+	private static final long DEFAULT_POLL_JITTER = 20;
+	private static final long DEFAULT_POLL_MAX_BACKOFF = 600;
+	private static final long DEFAULT_POLL_FAILURE_THRESHOLD = 5;
+	private static final long DEFAULT_POLL_THREADS = 2;
+
+	/*
+	 * 变更推送通道的默认读超时秒数，SSE服务器应在此时间内发送心跳，长轮询服务器应在此时间内返回
+	 */
+	private static final long DEFAULT_CHANNEL_TIMEOUT = 90;
+
+	/*
+	 * 变更推送通道断开后第一次重新连接的延迟，毫秒，之后逐次加倍，最长为轮询间隔
+	 */
+	private static final long CHANNEL_RECONNECT_DELAY = 1000;
+
+	static final String PATH_DIC_MAIN = "main.dic";
+	static final String PATH_DIC_QUANTIFIER = "quantifier.dic";
 	private static final String PATH_DIC_STOP = "stopword.dic";
 
+	private static final String DICT_MAIN = "main";
+	private static final String DICT_QUANTIFIER = "quantifier";
+	private static final String DICT_STOP = "stopword";
+
+	/*
+	 * 未配置dict_snapshot_dir时的快照目录，位于节点数据目录下的analysis-ik目录中
+	 */
+	private static final String DEFAULT_SNAPSHOT_DIR = "snapshot";
+
+	/*
+	 * 写入快照失败过，例如目录不可写，此后不再尝试写入
+	 */
+	private static volatile boolean snapshotWriteFailed;
+
+	static final String SNAPSHOT_MAIN = "main.snapshot";
+	//本地词典与远程词典合并后的主词典快照
+	static final String SNAPSHOT_MAIN_REMOTE = "main-remote.snapshot";
+	static final String SNAPSHOT_QUANTIFIER = "quantifier.snapshot";
+
+	/*
+	 * 打包时预编译的词典快照目录，位于词典目录下
+	 */
+	static final String PATH_COMPILED = "compiled";
+
 	private final static  String FILE_NAME = "IKAnalyzer.cfg.xml";
 	private final static  String EXT_DICT = "ext_dict";
 	private final static  String REMOTE_EXT_DICT = "remote_ext_dict";
 	private final static  String EXT_STOP = "ext_stopwords";
 	private final static  String REMOTE_EXT_STOP = "remote_ext_stopwords";
+	private final static  String DICT_SNAPSHOT_DIR = "dict_snapshot_dir";
+	private final static  String DICT_ENGINE = "dict_engine";
+	private final static  String DICT_ASYNC_INIT = "dict_async_init";
+	private final static  String DICT_INIT_TIMEOUT = "dict_init_timeout";
+	private final static  String DICT_RELOAD_QUIET_WINDOW = "dict_reload_quiet_window";
+	private final static  String DICT_RELOAD_STRATEGY = "dict_reload_strategy";
+	private final static  String DICT_POLL_INTERVAL = "dict_poll_interval";
+	private final static  String DICT_POLL_INTERVALS = "dict_poll_intervals";
+	private final static  String DICT_POLL_JITTER = "dict_poll_jitter";
+	private final static  String DICT_POLL_MAX_BACKOFF = "dict_poll_max_backoff";
+	private final static  String DICT_POLL_FAILURE_THRESHOLD = "dict_poll_failure_threshold";
+	private final static  String DICT_POLL_THREADS = "dict_poll_threads";
+	private final static  String REMOTE_DICT_CHANNEL = "remote_dict_channel";
+	private final static  String REMOTE_DICT_CHANNEL_TIMEOUT = "remote_dict_channel_timeout";
+	private final static  String STRATEGY_DIFF = "diff";
+	private final static  String STRATEGY_REBUILD = "rebuild";
+	private final static  String ENGINE_DAT = "dat";
+	private final static  String ENGINE_DAWG = "dawg";
+	private final static  String ENGINE_FST = "fst";
 
 	private Path conf_dir;
 	private Properties props;
 
-	private Dictionary(Configuration cfg) {
+	Dictionary(Configuration cfg) {
 		this.configuration = cfg;
 		this.props = new Properties();
 		this.conf_dir = cfg.getEnvironment().configFile().resolve(AnalysisIkPlugin.PLUGIN_NAME);
@@ -142,33 +310,246 @@ public class Dictionary {
 	 * 
 	 * @return Dictionary
 	 */
-	public static synchronized void initial(Configuration cfg) {
-		if (singleton == null) {
-			synchronized (Dictionary.class) {
-				if (singleton == null) {
-
-					singleton = new Dictionary(cfg);
-					singleton.loadMainDict();
-					singleton.loadSurnameDict();
-					singleton.loadQuantifierDict();
-					singleton.loadSuffixDict();
-					singleton.loadPrepDict();
-					singleton.loadStopWordDict();
-
-					if(cfg.isEnableRemoteDict()){
-						// 建立监控线程
-						for (String location : singleton.getRemoteExtDictionarys()) {
-							// 10 秒是初始延迟可以修改的 60是间隔时间 单位秒
-							pool.scheduleAtFixedRate(new Monitor(location), 10, 60, TimeUnit.SECONDS);
-						}
-						for (String location : singleton.getRemoteExtStopWordDictionarys()) {
-							pool.scheduleAtFixedRate(new Monitor(location), 10, 60, TimeUnit.SECONDS);
-						}
-					}
+	public static void initial(Configuration cfg) {
+		synchronized (Dictionary.class) {
+			if (singleton == null) {
+				// 加载完成后才赋值，其他线程不会取到尚未发布词典的实例
+				Dictionary dictionary = new Dictionary(cfg);
+				dictionary.load();
+				singleton = dictionary;
+			}
+		}
+		// 异步初始化时在锁外等待，加载线程启动监控时也要获取该锁
+		singleton.awaitLoaded();
+	}
+
+	/**
+	 * 插件加载时调用，配置为异步初始化时即在后台线程加载词典
+	 * 加载完成前分析器使用空的核心词典，每个词典加载完成后立即发布；未配置异步初始化时仍在首次创建分析器时加载
+	 * 注意：加载完成前写入的文档中文按单字切分，索引中的词元不会因词典加载完成而改变，需要时应重建索引
+	 */
+	public static synchronized void preload(Configuration cfg) {
+		if (singleton != null) {
+			return;
+		}
+		Dictionary dictionary = new Dictionary(cfg);
+		if (!"true".equals(dictionary.getProperty(DICT_ASYNC_INIT))) {
+			return;
+		}
+		dictionary.useCoreDict();
+		singleton = dictionary;
+		Thread loader = new Thread(() -> {
+			try {
+				dictionary.load();
+			} catch (RuntimeException e) {
+				logger.error("[Dict Loading] async loading failed", e);
+				dictionary.loaded.completeExceptionally(e);
+			}
+		}, "ik-dict-loader");
+		loader.setDaemon(true);
+		loader.start();
+		logger.info("[Dict Loading] loading dictionaries in background");
+	}
+
+	/**
+	 * 加载全部词典，加载期间持有写锁，修改词典的线程等待加载完成
+	 */
+	void load() {
+		long start = System.currentTimeMillis();
+		synchronized (writeLock) {
+			loadInParallel(this::loadMainDict, this::loadQuantifierDict, this::loadStopWordDict);
+		}
+		logStats();
+
+		if(configuration.isEnableRemoteDict()){
+			reloadCoordinator = new ReloadCoordinator(pool, getReloadQuietWindow(), this::reloadRemoteDicts);
+			// 建立监控，每个地址单独调度
+			startMonitors();
+		}
+		loaded.complete(null);
+		logger.info("[Dict Loading] dictionaries loaded in {} ms", System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 异步加载完成前使用的核心词典：主词典和量词词典为空，中文按单字切分，不过滤停止词
+	 */
+	private void useCoreDict() {
+		DictSegment empty = new DictSegment((char) 0);
+		_MainTrie = DoubleArrayTrie.compile(empty);
+		_QuantifierTrie = _MainTrie;
+		_StopWords = StopWordSet.compile(empty);
+		publishSnapshot();
+	}
+
+	/**
+	 * 以当前的主词典、量词词典和停止词发布新的快照，三者都已加载后才发布
+	 * 修改词典的线程在替换其中任一结构后调用，同时替换多个结构时全部替换后只调用一次
+	 */
+	private void publishSnapshot() {
+		synchronized (publishLock) {
+			DictTrie mainTrie = _MainTrie;
+			DictTrie quantifierTrie = _QuantifierTrie;
+			StopWordSet stopWords = _StopWords;
+			if (mainTrie == null || quantifierTrie == null || stopWords == null) {
+				return;
+			}
+			// 主词典未变化时沿用上一个快照的自动机，变化时在发布词典的线程上构建好再发布
+			DictionarySnapshot previous = snapshot;
+			AhoCorasickAutomaton automaton = previous != null && previous.getMainTrie() == mainTrie ? previous.getMainAutomaton() : null;
+			if (automaton == null && mainAutomatonUsed) {
+				long start = System.currentTimeMillis();
+				automaton = AhoCorasickAutomaton.build(mainTrie);
+				logger.info("[Dict Loading] main dict automaton built in {} ms", System.currentTimeMillis() - start);
+			}
+			snapshot = new DictionarySnapshot(++snapshotVersion, mainTrie, quantifierTrie, stopWords, automaton);
+		}
+	}
+
+	/**
+	 * 声明有分词器使用主词典的Aho-Corasick自动机，创建使用自动机的分词配置时调用
+	 * 首次调用时为当前词典构建自动机并重新发布快照，此后每次发布快照前都先构建好自动机
+	 */
+	public void useMainAutomaton() {
+		if (mainAutomatonUsed) {
+			return;
+		}
+		mainAutomatonUsed = true;
+		publishSnapshot();
+	}
+
+	/**
+	 * 等待异步加载完成，最多等待dict_init_timeout毫秒，超时后先使用已发布的词典
+	 */
+	private void awaitLoaded() {
+		if (loaded.isDone()) {
+			return;
+		}
+		long timeout = getInitTimeout();
+		try {
+			loaded.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			logger.warn("[Dict Loading] dictionaries not loaded after {} ms, using core dictionary until loading completes", timeout);
+		} catch (ExecutionException e) {
+			// 加载线程已记录错误
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private long getInitTimeout() {
+		String timeoutCfg = getProperty(DICT_INIT_TIMEOUT);
+		if (timeoutCfg == null || "".equals(timeoutCfg.trim())) {
+			return 0;
+		}
+		try {
+			return Math.max(0, Long.parseLong(timeoutCfg.trim()));
+		} catch (NumberFormatException e) {
+			logger.warn("[Dict Loading] invalid dict_init_timeout {}, not waiting", timeoutCfg);
+			return 0;
+		}
+	}
+
+	private long getReloadQuietWindow() {
+		return getLongProperty(DICT_RELOAD_QUIET_WINDOW, DEFAULT_RELOAD_QUIET_WINDOW);
+	}
+
+	/**
+	 * 读取非负整数配置，未配置或格式错误时返回默认值
+	 */
+	private long getLongProperty(String key, long defaultValue) {
+		String cfg = getProperty(key);
+		if (cfg == null || "".equals(cfg.trim())) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(0, Long.parseLong(cfg.trim()));
+		} catch (NumberFormatException e) {
+			logger.warn("[Dict Loading] invalid {} {}, using {}", key, cfg, defaultValue);
+			return defaultValue;
+		}
+	}
 
+	/**
+	 * 为每个远程词典地址建立监控
+	 *
+	 * 每个地址按自己的间隔调度，dict_poll_intervals可为单个地址指定间隔，格式为"地址 秒数"，多个用分号分隔
+	 */
+	private void startMonitors() {
+		long interval = TimeUnit.SECONDS.toMillis(getLongProperty(DICT_POLL_INTERVAL, DEFAULT_POLL_INTERVAL));
+		int jitter = (int) getLongProperty(DICT_POLL_JITTER, DEFAULT_POLL_JITTER);
+		long maxBackoff = TimeUnit.SECONDS.toMillis(getLongProperty(DICT_POLL_MAX_BACKOFF, DEFAULT_POLL_MAX_BACKOFF));
+		int threshold = (int) getLongProperty(DICT_POLL_FAILURE_THRESHOLD, DEFAULT_POLL_FAILURE_THRESHOLD);
+		int threads = (int) Math.max(1, getLongProperty(DICT_POLL_THREADS, DEFAULT_POLL_THREADS));
+
+		Map<String, Long> intervals = new HashMap<String, Long>();
+		String intervalsCfg = getProperty(DICT_POLL_INTERVALS);
+		if (intervalsCfg != null) {
+			for (String item : intervalsCfg.split(";")) {
+				String[] parts = item.trim().split("\\s+");
+				if (parts.length != 2) {
+					continue;
+				}
+				try {
+					intervals.put(parts[0], TimeUnit.SECONDS.toMillis(Long.parseLong(parts[1])));
+				} catch (NumberFormatException e) {
+					logger.warn("[Dict Loading] invalid dict_poll_intervals item {}", item);
 				}
 			}
 		}
+
+		synchronized (Dictionary.class) {
+			if (pollPool == null) {
+				pollPool = Executors.newScheduledThreadPool(threads);
+			}
+		}
+		String channelLocation = getProperty(REMOTE_DICT_CHANNEL);
+		if (channelLocation != null && !"".equals(channelLocation.trim())) {
+			// 通道长期占用一个线程，不占用轮询线程
+			int timeout = (int) TimeUnit.SECONDS.toMillis(getLongProperty(REMOTE_DICT_CHANNEL_TIMEOUT, DEFAULT_CHANNEL_TIMEOUT));
+			changeChannel = new ChangeChannel(channelLocation.trim(), Executors.newSingleThreadScheduledExecutor(),
+					new PollPolicy(CHANNEL_RECONNECT_DELAY, jitter, interval, 1), timeout, monitors);
+		}
+		for (String location : getRemoteExtDictionarys()) {
+			startMonitor(location, DICT_MAIN, new PollPolicy(intervals.getOrDefault(location, interval), jitter, maxBackoff, threshold));
+		}
+		for (String location : getRemoteExtStopWordDictionarys()) {
+			startMonitor(location, DICT_STOP, new PollPolicy(intervals.getOrDefault(location, interval), jitter, maxBackoff, threshold));
+		}
+		logger.info("[Dict Loading] polling {} remote dicts every {} ms with {} threads", monitors.size(), interval, threads);
+		if (changeChannel != null) {
+			changeChannel.start();
+		}
+	}
+
+	private void startMonitor(String location, String dictName, PollPolicy policy) {
+		Monitor monitor = new Monitor(this, location, dictName, pollPool, policy, changeChannel);
+		monitors.add(monitor);
+		monitor.start();
+	}
+
+	/**
+	 * 远程词典的监控，包括各地址的熔断状态和下一次轮询的延迟
+	 * @return 没有配置远程词典时为空
+	 */
+	public List<Monitor> getMonitors() {
+		return Collections.unmodifiableList(monitors);
+	}
+
+	/**
+	 * 远程词典的变更推送通道
+	 * @return 没有配置remote_dict_channel时为null
+	 */
+	public ChangeChannel getChangeChannel() {
+		return changeChannel;
+	}
+
+	/**
+	 * 词典是否已全部加载完成
+	 * 异步初始化时，加载完成前返回false，此时分词使用核心词典
+	 * @return boolean
+	 */
+	public boolean isReady() {
+		return loaded.isDone() && !loaded.isCompletedExceptionally();
 	}
 
 	private void walkFileTree(List<String> files, Path path) {
@@ -194,26 +575,166 @@ public class Dictionary {
 		}
 	}
 
-	private void loadDictFile(DictSegment dict, Path file, boolean critical, String name) {
-		try (InputStream is = new FileInputStream(file.toFile())) {
-			BufferedReader br = new BufferedReader(
-					new InputStreamReader(is, "UTF-8"), 512);
-			String word = br.readLine();
-			if (word != null) {
-				if (word.startsWith("\uFEFF"))
-					word = word.substring(1);
-				for (; word != null; word = br.readLine()) {
-					word = word.trim();
-					if (word.isEmpty()) continue;
-					dict.fillSegment(word.toCharArray());
-				}
-			}
-		} catch (FileNotFoundException e) {
+	private DictSegment loadDictFile(Path file, boolean critical, String name) {
+		return DictSegment.build(readDictFile(file, critical, name));
+	}
+
+	/**
+	 * 读取词典文件中的全部词条
+	 */
+	private List<char[]> readDictFile(Path file, boolean critical, String name) {
+		try {
+			return DictFileReader.readWords(file);
+		} catch (NoSuchFileException e) {
 			logger.error("ik-analyzer: " + name + " not found", e);
 			if (critical) throw new RuntimeException("ik-analyzer: " + name + " not found!!!", e);
 		} catch (IOException e) {
 			logger.error("ik-analyzer: " + name + " loading failed", e);
 		}
+		return new ArrayList<char[]>();
+	}
+
+	/**
+	 * 由词条建立词典树
+	 * 词条较多时按首字分片并行排序、建树，各分片根节点下的子树互不相交，合并时直接接入
+	 */
+	private static DictSegment buildDict(List<char[]> words) {
+		ForkJoinPool loadPool = ForkJoinTask.getPool();
+		if (words.size() < PARTITION_THRESHOLD || loadPool == null || loadPool.getParallelism() == 1) {
+			return DictSegment.build(words);
+		}
+		int partitions = loadPool.getParallelism();
+		List<List<char[]>> batches = new ArrayList<List<char[]>>(partitions);
+		for (int i = 0; i < partitions; i++) {
+			batches.add(new ArrayList<char[]>(words.size() / partitions + 1));
+		}
+		for (char[] word : words) {
+			batches.get(word[0] % partitions).add(word);
+		}
+		List<Callable<DictSegment>> builders = new ArrayList<Callable<DictSegment>>(partitions);
+		for (List<char[]> batch : batches) {
+			builders.add(() -> DictSegment.build(batch));
+		}
+		List<DictSegment> parts = invokeAll(builders);
+		DictSegment dict = parts.get(0);
+		for (int i = 1; i < parts.size(); i++) {
+			dict.fillSegments(parts.get(i));
+		}
+		return dict;
+	}
+
+	/**
+	 * 并行读取词典文件，每个文件建成一棵独立的词典树并记录统计
+	 * @return 按文件顺序排列的词典树
+	 */
+	private List<DictSegment> buildDictFiles(String dictName, List<String> files) {
+		List<Callable<DictSegment>> loaders = new ArrayList<Callable<DictSegment>>(files.size());
+		for (String fileName : files) {
+			loaders.add(() -> {
+				logger.info("[Dict Loading] " + fileName);
+				return buildDict(readDictFile(PathUtils.get(fileName), false, fileName));
+			});
+		}
+		List<DictSegment> dicts = invokeAll(loaders);
+		for (int i = 0; i < files.size(); i++) {
+			_SourceStats.add(DictStats.of(dictName, files.get(i), dicts.get(i)));
+		}
+		return dicts;
+	}
+
+	/**
+	 * 记录已下载的远程词典的统计
+	 * @param remoteWords 与locations一一对应，下载失败的为null
+	 */
+	private void addRemoteStats(String dictName, List<String> locations, List<List<char[]>> remoteWords) {
+		for (int i = 0; i < locations.size(); i++) {
+			if (remoteWords.get(i) != null) {
+				DictSegment dict = DictSegment.build(new ArrayList<char[]>(remoteWords.get(i)));
+				_SourceStats.add(DictStats.of(dictName, locations.get(i), dict));
+			}
+		}
+	}
+
+	/**
+	 * 并行下载远程词典的词条
+	 * 下载失败的词典保留上次的词条，并让其监控下次轮询时重新通知变化，本次的变化不会因下载失败而丢失
+	 * @return 与locations一一对应，下载失败的为null
+	 */
+	private List<List<char[]>> fetchRemoteDicts(List<String> locations) {
+		List<Callable<List<char[]>>> loaders = new ArrayList<Callable<List<char[]>>>(locations.size());
+		for (String location : locations) {
+			loaders.add(() -> {
+				logger.info("[Dict Loading] " + location);
+				List<String> lists = getRemoteWords(location);
+				// 如果找不到扩展的字典，则忽略
+				if (lists == null) {
+					logger.error("[Dict Loading] " + location + "加载失败");
+					for (Monitor monitor : monitors) {
+						if (monitor.getLocation().equals(location)) {
+							monitor.invalidate();
+						}
+					}
+					return null;
+				}
+				List<char[]> words = new ArrayList<char[]>(lists.size());
+				for (String theWord : lists) {
+					if (theWord != null && !"".equals(theWord.trim())) {
+						logger.info(theWord);
+						words.add(theWord.trim().toLowerCase().toCharArray());
+					}
+				}
+				return words;
+			});
+		}
+		return invokeAll(loaders);
+	}
+
+	/**
+	 * 在新建的有界ForkJoinPool中并行执行各个词典的加载，加载完毕后关闭线程池
+	 */
+	private static void loadInParallel(Runnable... loaders) {
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(loaders.length);
+		for (Runnable loader : loaders) {
+			tasks.add(Executors.callable(loader));
+		}
+		ForkJoinPool loadPool = new ForkJoinPool(LOAD_PARALLELISM);
+		try {
+			loadPool.invoke(ForkJoinTask.adapt(() -> invokeAll(tasks)));
+		} finally {
+			loadPool.shutdown();
+		}
+	}
+
+	/**
+	 * 在当前的ForkJoinPool中并行执行任务，不在ForkJoinPool中时依次执行
+	 * 任务抛出的异常原样抛出
+	 * ForkJoinPool默认的工作线程继承的访问控制上下文几乎没有权限，任务读取词典文件、下载远程词典都要在doPrivileged中执行，
+	 * 否则在Elasticsearch的SecurityManager下会抛出AccessControlException
+	 * @return 按任务顺序排列的结果
+	 */
+	private static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+		List<ForkJoinTask<T>> forkJoinTasks = new ArrayList<ForkJoinTask<T>>(tasks.size());
+		for (Callable<T> task : tasks) {
+			forkJoinTasks.add(ForkJoinTask.adapt(() -> {
+				try {
+					return AccessController.doPrivileged((PrivilegedExceptionAction<T>) task::call);
+				} catch (PrivilegedActionException e) {
+					throw e.getException();
+				}
+			}));
+		}
+		if (ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(forkJoinTasks);
+		} else {
+			for (ForkJoinTask<T> task : forkJoinTasks) {
+				task.invoke();
+			}
+		}
+		List<T> results = new ArrayList<T>(tasks.size());
+		for (ForkJoinTask<T> task : forkJoinTasks) {
+			results.add(task.join());
+		}
+		return results;
 	}
 
 	private List<String> getExtDictionarys() {
@@ -286,6 +807,42 @@ public class Dictionary {
 		return conf_dir.toAbsolutePath().toString();
 	}
 
+	/**
+	 * 词典编译后的结构：dat 双数组Trie（默认），dawg 最小化自动机，fst Lucene FST
+	 */
+	private String getDictEngine() {
+		String engine = getProperty(DICT_ENGINE);
+		if (engine == null || "".equals(engine.trim())) {
+			return ENGINE_DAT;
+		}
+		engine = engine.trim();
+		if (!ENGINE_DAT.equals(engine) && !ENGINE_DAWG.equals(engine) && !ENGINE_FST.equals(engine)) {
+			logger.warn("[Dict Loading] unknown dict_engine {}, using {}", engine, ENGINE_DAT);
+			return ENGINE_DAT;
+		}
+		return engine;
+	}
+
+	/**
+	 * 词典快照目录，默认为节点数据目录下的analysis-ik/snapshot，相对路径相对于数据目录下的analysis-ik，配置为空时不使用快照
+	 * 快照不写在配置目录中，配置目录可能是只读的
+	 * 快照保存的是双数组Trie，其他词典结构不使用快照
+	 */
+	private Path getSnapshotDir() {
+		if (!ENGINE_DAT.equals(getDictEngine())) {
+			return null;
+		}
+		String snapshotDirCfg = getProperty(DICT_SNAPSHOT_DIR);
+		if (snapshotDirCfg == null) {
+			snapshotDirCfg = DEFAULT_SNAPSHOT_DIR;
+		}
+		Path[] dataFiles = configuration.getEnvironment().dataFiles();
+		if ("".equals(snapshotDirCfg.trim()) || dataFiles.length == 0) {
+			return null;
+		}
+		return dataFiles[0].resolve(AnalysisIkPlugin.PLUGIN_NAME).resolve(snapshotDirCfg.trim());
+	}
+
 
 	/**
 	 * 获取词典单子实例
@@ -308,12 +865,8 @@ public class Dictionary {
 	 */
 	public void addWords(Collection<String> words) {
 		if (words != null) {
-			for (String word : words) {
-				if (word != null) {
-					// 批量加载词条到主内存词典中
-					singleton._MainDict.fillSegment(word.trim().toCharArray());
-				}
-			}
+			// 批量加载词条到主内存词典中
+			singleton.updateMainDict(toCharArrays(words), Collections.<char[]>emptyList());
 		}
 	}
 
@@ -322,13 +875,112 @@ public class Dictionary {
 	 */
 	public void disableWords(Collection<String> words) {
 		if (words != null) {
-			for (String word : words) {
-				if (word != null) {
-					// 批量屏蔽词条
-					singleton._MainDict.disableSegment(word.trim().toCharArray());
-				}
+			// 批量屏蔽词条
+			singleton.updateMainDict(Collections.<char[]>emptyList(), toCharArrays(words));
+		}
+	}
+
+	private static List<char[]> toCharArrays(Collection<String> words) {
+		List<char[]> charArrays = new ArrayList<char[]>(words.size());
+		for (String word : words) {
+			if (word != null && !word.trim().isEmpty()) {
+				charArrays.add(word.trim().toCharArray());
+			}
+		}
+		return charArrays;
+	}
+
+	/**
+	 * 在主词典树的新版本上修改词条，编译后整体发布
+	 * @param enabledWords 加入的词条
+	 * @param disabledWords 屏蔽的词条
+	 */
+	private long updateMainDict(Collection<char[]> enabledWords, Collection<char[]> disabledWords) {
+		synchronized (writeLock) {
+			return modifyMainDict(enabledWords, disabledWords);
+		}
+	}
+
+	/**
+	 * 修改主词典并发布，返回估算的峰值内存开销
+	 * 调用方需持有写锁，或词典尚在初始化
+	 */
+	private long modifyMainDict(Collection<char[]> enabledWords, Collection<char[]> disabledWords) {
+		boolean small = enabledWords.size() + disabledWords.size() <= INCREMENTAL_UPDATE_LIMIT;
+		if (small && (_MainTrie instanceof DoubleArrayTrie || _MainTrie instanceof MappedDoubleArrayTrie)) {
+			// 少量词条直接在双数组Trie的副本上修改，不重新编译；映射的快照复制到堆上后直接修改，只复制一次
+			DoubleArrayTrie trie = _MainTrie instanceof DoubleArrayTrie
+					? ((DoubleArrayTrie) _MainTrie).copyWith(enabledWords, disabledWords)
+					: ((MappedDoubleArrayTrie) _MainTrie).copyToHeap().updateInPlace(enabledWords, disabledWords);
+			long bytes = trie.ramBytesUsed();
+			if (_MainDict != null) {
+				DictSegment updated = _MainDict.copyWith(enabledWords, 1).copyWith(disabledWords, 0);
+				bytes += updated.unsharedBytes(_MainDict);
+				_MainDict = updated;
 			}
+			_MainTrie = trie;
+			publishSnapshot();
+			return bytes;
+		}
+		boolean decompiled = _MainDict == null;
+		DictSegment base = getMainDict();
+		long bytes = decompiled ? base.ramBytesUsed() : 0;
+		DictSegment updated = base;
+		if (!enabledWords.isEmpty()) {
+			updated = updated.copyWith(enabledWords, 1);
 		}
+		if (!disabledWords.isEmpty()) {
+			updated = updated.copyWith(disabledWords, 0);
+		}
+		// 词典树只复制修改过的路径，其余子树与原词典树共享
+		bytes += updated.unsharedBytes(base);
+		_MainTrie = compile(updated);
+		bytes += structureBytes(_MainTrie);
+		// 只有堆上的双数组Trie保留词典树，其余结构需要时再还原
+		_MainDict = _MainTrie instanceof DoubleArrayTrie ? updated : null;
+		publishSnapshot();
+		return bytes;
+	}
+
+	/**
+	 * 编译后的词典结构占用的堆内存和映射内存字节数
+	 */
+	private static long structureBytes(DictTrie trie) {
+		if (trie instanceof DoubleArrayTrie) {
+			return ((DoubleArrayTrie) trie).ramBytesUsed();
+		}
+		if (trie instanceof MappedDoubleArrayTrie) {
+			return ((MappedDoubleArrayTrie) trie).mappedBytes();
+		}
+		if (trie instanceof DawgTrie) {
+			return ((DawgTrie) trie).ramBytesUsed();
+		}
+		if (trie instanceof FstTrie) {
+			return ((FstTrie) trie).ramBytesUsed();
+		}
+		return 0;
+	}
+
+	/**
+	 * 估算词条列表占用的堆内存字节数
+	 */
+	private static long wordsBytes(Collection<char[]> words) {
+		long bytes = 16 + 4L * words.size();
+		for (char[] word : words) {
+			bytes += (16 + 2L * word.length + 7) & ~7L;
+		}
+		return bytes;
+	}
+
+	/**
+	 * 获取主词典树，从快照加载时先由编译后的词典还原
+	 * 调用方需持有写锁，或词典尚在初始化
+	 */
+	private DictSegment getMainDict() {
+		if (_MainDict == null) {
+			_MainDict = DictSegment.decompile(_MainTrie);
+		}
+		return _MainDict;
 	}
 
 	/**
@@ -337,7 +989,7 @@ public class Dictionary {
 	 * @return Hit 匹配结果描述
 	 */
 	public Hit matchInMainDict(char[] charArray) {
-		return singleton._MainDict.match(charArray);
+		return match(singleton.snapshot.getMainTrie(), charArray, 0, charArray.length);
 	}
 
 	/**
@@ -346,7 +998,7 @@ public class Dictionary {
 	 * @return Hit 匹配结果描述
 	 */
 	public Hit matchInMainDict(char[] charArray, int begin, int length) {
-		return singleton._MainDict.match(charArray, begin, length);
+		return match(singleton.snapshot.getMainTrie(), charArray, begin, length);
 	}
 
 	/**
@@ -355,7 +1007,7 @@ public class Dictionary {
 	 * @return Hit 匹配结果描述
 	 */
 	public Hit matchInQuantifierDict(char[] charArray, int begin, int length) {
-		return singleton._QuantifierDict.match(charArray, begin, length);
+		return match(singleton.snapshot.getQuantifierTrie(), charArray, begin, length);
 	}
 
 	/**
@@ -364,73 +1016,279 @@ public class Dictionary {
 	 * @return Hit
 	 */
 	public Hit matchWithHit(char[] charArray, int currentIndex, Hit matchedHit) {
+		DictTrie trie = matchedHit.getMatchedTrie();
+		if (trie != null) {
+			matchedHit.setUnmatch();
+			matchedHit.setEnd(currentIndex);
+			return toHit(trie, trie.probe(matchedHit.getMatchedState(), charArray[currentIndex]), matchedHit);
+		}
 		DictSegment ds = matchedHit.getMatchedDictSegment();
 		return ds.match(charArray, currentIndex, 1, matchedHit);
 	}
 
+	/**
+	 * 获取当前发布的词典快照
+	 *
+	 * 重新加载词典或增删词条后会发布新的快照，分词器在每篇文档开始时取一次，整篇文档都使用同一个快照
+	 * @return DictionarySnapshot
+	 */
+	public DictionarySnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	/**
+	 * 获取当前快照中的主词典，供分词器不创建Hit直接匹配
+	 * @return DictTrie
+	 */
+	public DictTrie getMainTrie() {
+		return singleton.snapshot.getMainTrie();
+	}
+
+	/**
+	 * 获取当前快照中主词典的Aho-Corasick自动机
+	 * @return AhoCorasickAutomaton
+	 */
+	public AhoCorasickAutomaton getMainAutomaton() {
+		return singleton.snapshot.getMainAutomaton();
+	}
+
+	/**
+	 * 获取当前快照中的量词词典，供分词器不创建Hit直接匹配
+	 * @return DictTrie
+	 */
+	public DictTrie getQuantifierTrie() {
+		return singleton.snapshot.getQuantifierTrie();
+	}
+
+	private static Hit match(DictTrie trie, char[] charArray, int begin, int length) {
+		Hit searchHit = new Hit();
+		searchHit.setBegin(begin);
+		searchHit.setEnd(begin + length - 1);
+		return toHit(trie, trie.probe(charArray, begin, length), searchHit);
+	}
+
+	/**
+	 * 将匹配状态转换为Hit，兼容按Hit匹配的接口
+	 */
+	private static Hit toHit(DictTrie trie, int state, Hit searchHit) {
+		if (DictTrie.isMatch(state)) {
+			searchHit.setMatch();
+		}
+		if (DictTrie.isPrefix(state)) {
+			searchHit.setPrefix();
+			searchHit.setMatchedTrie(trie);
+			searchHit.setMatchedState(state);
+		}
+		return searchHit;
+	}
+
 	/**
 	 * 判断是否是停止词
 	 * 
 	 * @return boolean
 	 */
 	public boolean isStopWord(char[] charArray, int begin, int length) {
-		return singleton._StopWords.match(charArray, begin, length).isMatch();
+		return singleton.snapshot.isStopWord(charArray, begin, length);
 	}
 
 	/**
 	 * 加载主词典及扩展词典
 	 */
 	private void loadMainDict() {
-		// 建立一个主词典实例
-		_MainDict = new DictSegment((char) 0);
+		// 本地词典文件未变化时直接映射快照，该快照只包含本地词典，远程词典不影响其指纹
+		List<Path> sources = new ArrayList<Path>();
+		sources.add(PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_MAIN));
+		for (String extDictName : getExtDictionarys()) {
+			sources.add(PathUtils.get(extDictName));
+		}
+		long stamp = DictSnapshot.fingerprint(sources);
+		// 没有扩展词典时优先映射打包时预编译的快照
+		DictTrie trie = sources.size() == 1 ? openCompiled(SNAPSHOT_MAIN, sources.get(0)) : null;
+		if (trie == null) {
+			trie = openSnapshot(SNAPSHOT_MAIN, stamp);
+		}
+		DictSegment dict = null;
+		if (trie == null) {
+			// 并行读取主词典文件和扩展词典，再按配置顺序合并
+			List<String> files = new ArrayList<String>();
+			files.add(PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_MAIN).toString());
+			files.addAll(getExtDictionarys());
+			List<DictSegment> dicts = buildDictFiles(DICT_MAIN, files);
+			dict = dicts.get(0);
+			for (int i = 1; i < dicts.size(); i++) {
+				dict.fillSegments(dicts.get(i));
+			}
+			// 编译双数组Trie
+			trie = compile(dict, SNAPSHOT_MAIN, stamp);
+			mainBuildBytes = dict.ramBytesUsed() + structureBytes(trie);
+		}
+		_MainDict = dict;
+		_MainTrie = trie;
+		if (!(_MainTrie instanceof DoubleArrayTrie)) {
+			// 词典已在堆外或已最小化，释放堆上的词典树
+			_MainDict = null;
+		}
+		// 本地词典先发布，下载远程词典期间查询线程不必等待
+		publishSnapshot();
+
+		// 加载远程自定义词库，下载到的词条作为增量加入已发布的主词典
+		List<String> locations = getRemoteExtDictionarys();
+		if (locations.isEmpty()) {
+			return;
+		}
+		List<List<char[]>> remoteWords = fetchRemoteDicts(locations);
+		List<char[]> words = new ArrayList<char[]>();
+		for (int i = 0; i < locations.size(); i++) {
+			if (remoteWords.get(i) != null) {
+				remoteMainWords.put(locations.get(i), toWordSet(remoteWords.get(i)));
+				words.addAll(remoteWords.get(i));
+			} else if (remoteMainWords.containsKey(locations.get(i))) {
+				// 重新加载时下载失败，沿用上次下载到的词条
+				words.addAll(toCharArrays(remoteMainWords.get(locations.get(i))));
+			}
+		}
+		addRemoteStats(DICT_MAIN, locations, remoteWords);
+		if (words.isEmpty()) {
+			return;
+		}
+		// 远程词典全部下载成功时，合并后的主词典另存一个快照，指纹为本地词典的指纹加上各远程词典的地址和词条，
+		// 远程词典内容未变化时下次启动直接映射，不必再把远程词条合并到堆上的副本或重新编译
+		boolean complete = true;
+		long remoteStamp = stamp;
+		for (int i = 0; i < locations.size(); i++) {
+			if (remoteWords.get(i) == null) {
+				complete = false;
+				break;
+			}
+			remoteStamp = DictSnapshot.fingerprint(remoteStamp, locations.get(i), remoteWords.get(i));
+		}
+		DictTrie merged = complete ? openSnapshot(SNAPSHOT_MAIN_REMOTE, remoteStamp) : null;
+		if (merged != null) {
+			_MainTrie = merged;
+			_MainDict = null;
+			publishSnapshot();
+			return;
+		}
+		// 初始化时写锁由load持有，其他加载任务不修改主词典
+		mainBuildBytes += modifyMainDict(words, Collections.<char[]>emptyList());
+		if (complete && _MainTrie instanceof DoubleArrayTrie) {
+			DictTrie mapped = writeSnapshot((DoubleArrayTrie) _MainTrie, SNAPSHOT_MAIN_REMOTE, remoteStamp);
+			if (mapped != _MainTrie) {
+				// 改用映射的快照，释放堆上的副本
+				_MainTrie = mapped;
+				_MainDict = null;
+				publishSnapshot();
+			}
+		}
+	}
 
-		// 读取主词典文件
-		Path file = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_MAIN);
-		loadDictFile(_MainDict, file, false, "Main Dict");
-		// 加载扩展词典
-		this.loadExtDict();
-		// 加载远程自定义词库
-		this.loadRemoteExtDict();
+	/**
+	 * 按配置的词典结构编译词典
+	 */
+	private DictTrie compile(DictSegment dict) {
+		String engine = getDictEngine();
+		if (ENGINE_DAWG.equals(engine)) {
+			DawgTrie trie = DawgTrie.compile(dict);
+			logger.info("[Dict Loading] dict minimized, trie nodes {} ({} bytes) -> dawg nodes {} ({} bytes)",
+					dict.countNodes(), dict.ramBytesUsed(), trie.nodeCount(), trie.ramBytesUsed());
+			return trie;
+		}
+		if (ENGINE_FST.equals(engine)) {
+			FstTrie trie = FstTrie.compile(dict);
+			logger.info("[Dict Loading] dict compiled to fst, nodes {} ({} bytes)", trie.nodeCount(), trie.ramBytesUsed());
+			return trie;
+		}
+		return DoubleArrayTrie.compile(dict);
 	}
 
 	/**
-	 * 加载用户配置的扩展词典到主词库表
+	 * 编译词典并写入快照，写入成功时返回映射后的快照
 	 */
-	private void loadExtDict() {
-		// 加载扩展词典配置
-		List<String> extDictFiles = getExtDictionarys();
-		if (extDictFiles != null) {
-			for (String extDictName : extDictFiles) {
-				// 读取扩展词典文件
-				logger.info("[Dict Loading] " + extDictName);
-				Path file = PathUtils.get(extDictName);
-				loadDictFile(_MainDict, file, false, "Extra Dict");
-			}
+	private DictTrie compile(DictSegment dict, String snapshotName, long stamp) {
+		if (!ENGINE_DAT.equals(getDictEngine())) {
+			return compile(dict);
 		}
+		DoubleArrayTrie trie = DoubleArrayTrie.compile(dict);
+		logger.info("[Dict Loading] {} compiled, double array size {}", snapshotName, trie.size());
+		return writeSnapshot(trie, snapshotName, stamp);
 	}
 
 	/**
-	 * 加载远程扩展词典到主词库表
+	 * 写入快照，写入成功时返回映射后的快照，否则返回原双数组Trie
 	 */
-	private void loadRemoteExtDict() {
-		List<String> remoteExtDictFiles = getRemoteExtDictionarys();
-		for (String location : remoteExtDictFiles) {
-			logger.info("[Dict Loading] " + location);
-			List<String> lists = getRemoteWords(location);
-			// 如果找不到扩展的字典，则忽略
-			if (lists == null) {
-				logger.error("[Dict Loading] " + location + "加载失败");
-				continue;
-			}
-			for (String theWord : lists) {
-				if (theWord != null && !"".equals(theWord.trim())) {
-					// 加载扩展词典数据到主内存词典中
-					logger.info(theWord);
-					_MainDict.fillSegment(theWord.trim().toLowerCase().toCharArray());
+	private DictTrie writeSnapshot(DoubleArrayTrie trie, String snapshotName, long stamp) {
+		Path snapshotDir = getSnapshotDir();
+		if (snapshotDir == null || snapshotWriteFailed) {
+			return trie;
+		}
+		Path file = snapshotDir.resolve(snapshotName);
+		SpecialPermission.check();
+		return AccessController.doPrivileged((PrivilegedAction<DictTrie>) () -> {
+			try {
+				DictSnapshot.write(file, stamp, trie);
+				DictTrie mapped = DictSnapshot.open(file, stamp);
+				return mapped != null ? mapped : trie;
+			} catch (IOException | SecurityException e) {
+				// 快照只是加速启动，写不了时直接使用编译结果，只记录一次，此后每次启动都要重新编译
+				if (!snapshotWriteFailed) {
+					snapshotWriteFailed = true;
+					logger.warn("[Dict Loading] writing snapshot {} failed, snapshots are disabled and dictionaries will be compiled on every start", file, e);
 				}
+				return trie;
 			}
+		});
+	}
+
+	/**
+	 * 映射打包时预编译的快照，源词典文件内容被修改过时不使用
+	 */
+	private DictTrie openCompiled(String snapshotName, Path source) {
+		if (!ENGINE_DAT.equals(getDictEngine())) {
+			return null;
 		}
+		Path file = PathUtils.get(getDictRoot(), PATH_COMPILED, snapshotName);
+		SpecialPermission.check();
+		return AccessController.doPrivileged((PrivilegedAction<DictTrie>) () -> {
+			if (!Files.isRegularFile(file)) {
+				return null;
+			}
+			try {
+				MappedDoubleArrayTrie trie = DictSnapshot.open(file, DictSnapshot.checksum(Collections.singletonList(source)));
+				if (trie != null) {
+					logger.info("[Dict Loading] precompiled {} mapped, double array size {}", file, trie.size());
+				} else {
+					logger.info("[Dict Loading] precompiled {} does not match {}, ignored", file, source);
+				}
+				return trie;
+			} catch (IOException | SecurityException e) {
+				logger.warn("[Dict Loading] opening precompiled {} failed", file, e);
+				return null;
+			}
+		});
+	}
 
+	/**
+	 * 映射与词典文件指纹一致的快照
+	 */
+	private DictTrie openSnapshot(String snapshotName, long stamp) {
+		Path snapshotDir = getSnapshotDir();
+		if (snapshotDir == null) {
+			return null;
+		}
+		Path file = snapshotDir.resolve(snapshotName);
+		SpecialPermission.check();
+		return AccessController.doPrivileged((PrivilegedAction<DictTrie>) () -> {
+			try {
+				MappedDoubleArrayTrie trie = DictSnapshot.open(file, stamp);
+				if (trie != null) {
+					logger.info("[Dict Loading] {} mapped, double array size {}", file, trie.size());
+				}
+				return trie;
+			} catch (IOException | SecurityException e) {
+				logger.warn("[Dict Loading] opening snapshot {} failed", file, e);
+				return null;
+			}
+		});
 	}
 
 	private static List<String> getRemoteWords(String location) {
@@ -442,6 +1300,7 @@ public class Dictionary {
 
 	/**
 	 * 从远程服务器上下载自定义词条
+	 * @return 下载失败（返回码不是200或请求出错）时为null，与内容为空的词典区分
 	 */
 	private static List<String> getRemoteWordsUnprivileged(String location) {
 
@@ -469,108 +1328,385 @@ public class Dictionary {
 						}
 					}
 
-					if (entity.getContentLength() > 0) {
+					// 分块传输时没有Content-Length，同样读取内容
+					if (entity.getContentLength() != 0) {
 						in = new BufferedReader(new InputStreamReader(entity.getContent(), charset));
 						String line;
 						while ((line = in.readLine()) != null) {
 							buffer.add(line);
 						}
 						in.close();
-						response.close();
-						return buffer;
 					}
+				}
+				response.close();
+				return buffer;
 			}
-			}
+			logger.info("getRemoteWords {} return bad code {}", location, response.getStatusLine().getStatusCode());
 			response.close();
 		} catch (IllegalStateException | IOException e) {
-			logger.error("getRemoteWords {} error", e, location);
+			logger.error("getRemoteWords {} error", location, e);
 		}
-		return buffer;
+		return null;
 	}
 
 	/**
 	 * 加载用户扩展的停止词词典
 	 */
 	private void loadStopWordDict() {
-		// 建立主词典实例
-		_StopWords = new DictSegment((char) 0);
-
-		// 读取主词典文件
-		Path file = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_STOP);
-		loadDictFile(_StopWords, file, false, "Main Stopwords");
-
-		// 加载扩展停止词典
-		List<String> extStopWordDictFiles = getExtStopWordDictionarys();
-		if (extStopWordDictFiles != null) {
-			for (String extStopWordDictName : extStopWordDictFiles) {
-				logger.info("[Dict Loading] " + extStopWordDictName);
-
-				// 读取扩展词典文件
-				file = PathUtils.get(extStopWordDictName);
-				loadDictFile(_StopWords, file, false, "Extra Stopwords");
-			}
+		// 读取停止词词典文件和扩展停止词典，各个来源的词条分别保留
+		Map<String, List<char[]>> sources = new LinkedHashMap<String, List<char[]>>();
+		List<String> files = new ArrayList<String>();
+		files.add(PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_STOP).toString());
+		files.addAll(getExtStopWordDictionarys());
+		for (String file : files) {
+			sources.put(file, readDictFile(PathUtils.get(file), false, file));
 		}
 
 		// 加载远程停用词典
-		List<String> remoteExtStopWordDictFiles = getRemoteExtStopWordDictionarys();
-		for (String location : remoteExtStopWordDictFiles) {
-			logger.info("[Dict Loading] " + location);
-			List<String> lists = getRemoteWords(location);
-			// 如果找不到扩展的字典，则忽略
-			if (lists == null) {
-				logger.error("[Dict Loading] " + location + "加载失败");
-				continue;
-			}
-			for (String theWord : lists) {
-				if (theWord != null && !"".equals(theWord.trim())) {
-					// 加载远程词典数据到主内存中
-					logger.info(theWord);
-					_StopWords.fillSegment(theWord.trim().toLowerCase().toCharArray());
-				}
+		List<String> locations = getRemoteExtStopWordDictionarys();
+		List<List<char[]>> remoteWords = fetchRemoteDicts(locations);
+		for (int i = 0; i < locations.size(); i++) {
+			if (remoteWords.get(i) != null) {
+				sources.put(locations.get(i), remoteWords.get(i));
+			} else if (stopWordSources.containsKey(locations.get(i))) {
+				// 重新加载时下载失败，沿用上次下载到的词条
+				sources.put(locations.get(i), stopWordSources.get(locations.get(i)));
 			}
 		}
+		_StopWords = compileStopWords(sources);
+		stopWordSources = sources;
+		publishSnapshot();
+	}
+
+	/**
+	 * 合并各个来源的停止词并编译，同时更新各个来源的统计
+	 */
+	private StopWordSet compileStopWords(Map<String, List<char[]>> sources) {
+		DictSegment stopWords = new DictSegment((char) 0);
+		for (Map.Entry<String, List<char[]>> source : sources.entrySet()) {
+			DictSegment dict = DictSegment.build(new ArrayList<char[]>(source.getValue()));
+			putSourceStats(DictStats.of(DICT_STOP, source.getKey(), dict));
+			stopWords.fillSegments(dict);
+		}
+		return StopWordSet.compile(stopWords);
+	}
 
+	/**
+	 * 记录一个来源的统计，替换该来源此前的统计
+	 */
+	private void putSourceStats(DictStats stats) {
+		_SourceStats.removeIf(s -> s.getName().equals(stats.getName()) && Objects.equals(s.getSource(), stats.getSource()));
+		_SourceStats.add(stats);
 	}
 
 	/**
 	 * 加载量词词典
 	 */
 	private void loadQuantifierDict() {
-		// 建立一个量词典实例
-		_QuantifierDict = new DictSegment((char) 0);
-		// 读取量词词典文件
 		Path file = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_QUANTIFIER);
-		loadDictFile(_QuantifierDict, file, false, "Quantifier");
+		long stamp = DictSnapshot.fingerprint(Collections.singletonList(file));
+		DictTrie trie = openCompiled(SNAPSHOT_QUANTIFIER, file);
+		if (trie == null) {
+			trie = openSnapshot(SNAPSHOT_QUANTIFIER, stamp);
+		}
+		if (trie == null) {
+			// 读取量词词典文件，建立量词典实例
+			DictSegment _QuantifierDict = loadDictFile(file, false, "Quantifier");
+			trie = compile(_QuantifierDict, SNAPSHOT_QUANTIFIER, stamp);
+		}
+		_QuantifierTrie = trie;
+		publishSnapshot();
 	}
 
-	private void loadSurnameDict() {
-		DictSegment _SurnameDict = new DictSegment((char) 0);
-		Path file = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_SURNAME);
-		loadDictFile(_SurnameDict, file, true, "Surname");
+	/**
+	 * 按配置的策略重新加载主词典，停止词不受影响
+	 * diff 与当前主词典比较只增删变化的词条；rebuild 或词典结构不支持比较时在另一个实例中重新加载后替换
+	 * @return 估算的峰值内存开销
+	 */
+	private long reloadMainDict() {
+		logger.info("重新加载主词典...");
+		long bytes = STRATEGY_DIFF.equals(getReloadStrategy()) ? reloadMainDictByDiff() : -1;
+		if (bytes >= 0) {
+			logger.info("重新加载主词典完毕, peak overhead {} bytes", bytes);
+			return bytes;
+		}
+		// 新开一个实例加载词典，减少加载过程对当前词典使用的影响
+		Dictionary tmpDict = new Dictionary(configuration);
+		tmpDict.configuration = configuration;
+		tmpDict.remoteMainWords.putAll(remoteMainWords);
+		loadInParallel(tmpDict::loadMainDict);
+		synchronized (writeLock) {
+			publishMainDict(tmpDict);
+			publishSnapshot();
+		}
+		// 只替换主词典各个来源的统计
+		replaceSourceStats(DICT_MAIN, tmpDict._SourceStats);
+		logger.info("重新加载主词典完毕, peak overhead {} bytes", tmpDict.mainBuildBytes);
+		return tmpDict.mainBuildBytes;
 	}
 
-	private void loadSuffixDict() {
-		DictSegment _SuffixDict = new DictSegment((char) 0);
-		Path file = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_SUFFIX);
-		loadDictFile(_SuffixDict, file, true, "Suffix");
+	/**
+	 * 与当前主词典比较，只增删变化的词条，不在当前词典旁边另建一份完整的词典
+	 *
+	 * 逐个读取词典文件和远程词典的词条并在当前的双数组Trie中查找：查到的词条标记其节点，查不到的即新增的词条；
+	 * 读完后成词但没有被标记的节点即已删除的词条。变化的词条交给updateMainDict，未变化的部分与旧词典共享，
+	 * 峰值内存只有标记位、变化的词条和修改后的结构。远程词典使用最近一次下载到的词条，不重新下载。
+	 * 比较的是不可变的双数组Trie，读取词典文件时不持有写锁，比较期间主词典被修改时重新比较。
+	 * DAWG和FST合并了公共后缀，一个节点不对应唯一的词条，这两种结构仍在另一个实例中重新加载
+	 * @return 估算的峰值内存开销，不适用时返回-1
+	 */
+	private long reloadMainDictByDiff() {
+		long start = System.currentTimeMillis();
+		while (true) {
+			DictTrie trie = _MainTrie;
+			if (!(trie instanceof DoubleArrayTrie) && !(trie instanceof MappedDoubleArrayTrie)) {
+				return -1;
+			}
+			int size = trie instanceof DoubleArrayTrie ? ((DoubleArrayTrie) trie).size() : ((MappedDoubleArrayTrie) trie).size();
+			BitSet kept = new BitSet(size);
+			List<char[]> added = new ArrayList<char[]>();
+			DictFileReader.WordConsumer diff = (buffer, offset, length) -> {
+				int state = trie.probe(buffer, offset, length);
+				if (DictTrie.isMatch(state)) {
+					kept.set(state & DictTrie.NODE_MASK);
+				} else {
+					added.add(Arrays.copyOfRange(buffer, offset, offset + length));
+				}
+			};
+			Path mainFile = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_MAIN);
+			try {
+				DictFileReader.read(mainFile, diff);
+			} catch (IOException e) {
+				// 主词典读取失败时按原方式重新加载，由其报告错误
+				logger.error("ik-analyzer: " + PATH_DIC_MAIN + " loading failed", e);
+				return -1;
+			}
+			for (String extFile : getExtDictionarys()) {
+				try {
+					DictFileReader.read(PathUtils.get(extFile), diff);
+				} catch (NoSuchFileException e) {
+					logger.error("ik-analyzer: " + extFile + " not found", e);
+				} catch (IOException e) {
+					logger.error("ik-analyzer: " + extFile + " loading failed", e);
+				}
+			}
+			for (Set<String> words : remoteMainWords.values()) {
+				for (String word : words) {
+					char[] charArray = word.toCharArray();
+					diff.accept(charArray, 0, charArray.length);
+				}
+			}
+			List<char[]> removed = new ArrayList<char[]>();
+			trie.forEachWord(word -> {
+				if (!kept.get(trie.probe(word, 0, word.length) & DictTrie.NODE_MASK)) {
+					removed.add(word);
+				}
+			});
+			synchronized (writeLock) {
+				if (_MainTrie != trie) {
+					// 比较期间主词典已被修改，与新的主词典重新比较
+					continue;
+				}
+				long bytes = kept.size() / 8 + wordsBytes(added) + wordsBytes(removed);
+				if (!added.isEmpty() || !removed.isEmpty()) {
+					bytes += modifyMainDict(added, removed);
+				}
+				logger.info("[Dict Loading] main dict reloaded by diff in {} ms, {} words added, {} words removed",
+						System.currentTimeMillis() - start, added.size(), removed.size());
+				return bytes;
+			}
+		}
 	}
 
-	private void loadPrepDict() {
-		DictSegment _PrepDict = new DictSegment((char) 0);
-		Path file = PathUtils.get(getDictRoot(), Dictionary.PATH_DIC_PREP);
-		loadDictFile(_PrepDict, file, true, "Preposition");
+	/**
+	 * 替换一个词典各个来源的统计，其他词典的统计不变
+	 */
+	private void replaceSourceStats(String dictName, List<DictStats> replacement) {
+		List<DictStats> sourceStats = new CopyOnWriteArrayList<DictStats>(replacement);
+		for (DictStats stats : _SourceStats) {
+			if (!dictName.equals(stats.getName())) {
+				sourceStats.add(stats);
+			}
+		}
+		_SourceStats = sourceStats;
 	}
 
-	void reLoadMainDict() {
-		logger.info("重新加载词典...");
-		// 新开一个实例加载词典，减少加载过程对当前词典使用的影响
-		Dictionary tmpDict = new Dictionary(configuration);
-		tmpDict.configuration = getSingleton().configuration;
-		tmpDict.loadMainDict();
-		tmpDict.loadStopWordDict();
+	private String getReloadStrategy() {
+		String strategy = getProperty(DICT_RELOAD_STRATEGY);
+		if (strategy == null || "".equals(strategy.trim())) {
+			return STRATEGY_DIFF;
+		}
+		strategy = strategy.trim();
+		if (!STRATEGY_DIFF.equals(strategy) && !STRATEGY_REBUILD.equals(strategy)) {
+			logger.warn("[Dict Loading] unknown dict_reload_strategy {}, using {}", strategy, STRATEGY_DIFF);
+			return STRATEGY_DIFF;
+		}
+		return strategy;
+	}
+
+	/**
+	 * 替换为另一个实例加载的主词典
+	 * 调用方需持有写锁，替换后调用publishSnapshot发布
+	 */
+	private void publishMainDict(Dictionary tmpDict) {
 		_MainDict = tmpDict._MainDict;
-		_StopWords = tmpDict._StopWords;
-		logger.info("重新加载词典完毕...");
+		_MainTrie = tmpDict._MainTrie;
+		remoteMainWords.clear();
+		remoteMainWords.putAll(tmpDict.remoteMainWords);
+	}
+
+	/**
+	 * 远程词典有变化，交给重新加载协调器，静默窗口内的多个变化合并为一次重新加载
+	 * @param dictName 词典名称：main、stopword
+	 * @param location 远程词典地址
+	 */
+	void remoteDictChanged(String dictName, String location) {
+		reloadCoordinator.trigger(dictName, location);
+	}
+
+	/**
+	 * 远程词典重新加载的统计
+	 * @return 没有配置远程词典时各项均为0
+	 */
+	public ReloadStats getReloadStats() {
+		ReloadCoordinator coordinator = reloadCoordinator;
+		return coordinator == null ? ReloadStats.EMPTY : coordinator.getStats();
+	}
+
+	/**
+	 * 一次重新加载所有变化的远程词典，每个词典只重新加载一次
+	 * 远程停止词典只替换变化地址的词条后重新编译停止词集合；
+	 * 远程扩展词典比较新旧内容，只有新增词条时直接加入当前主词典，不重新读取其他词典；
+	 * 有词条被删除时按dict_reload_strategy重新加载主词典
+	 * @param changed 词典名称到变化地址的映射
+	 * @return 估算的峰值内存开销
+	 */
+	long reloadRemoteDicts(Map<String, Set<String>> changed) {
+		long bytes = 0;
+		Set<String> stopLocations = changed.get(DICT_STOP);
+		if (stopLocations != null && !stopLocations.isEmpty()) {
+			bytes += reloadRemoteStopWords(new ArrayList<String>(stopLocations));
+		}
+		Set<String> mainLocations = changed.get(DICT_MAIN);
+		if (mainLocations != null && !mainLocations.isEmpty()) {
+			bytes += reloadRemoteMainWords(new ArrayList<String>(mainLocations));
+		}
+		return bytes;
+	}
+
+	private long reloadRemoteMainWords(List<String> locations) {
+		List<List<char[]>> fetched = fetchRemoteDicts(locations);
+		Set<String> added = new HashSet<String>();
+		int removed = 0;
+		Map<String, Set<String>> current = new HashMap<String, Set<String>>();
+		long bytes = 0;
+		for (int i = 0; i < locations.size(); i++) {
+			if (fetched.get(i) == null) {
+				continue;
+			}
+			String location = locations.get(i);
+			// 此前没有下载成功的地址，全部词条都是新增的
+			Set<String> previous = remoteMainWords.getOrDefault(location, Collections.<String>emptySet());
+			Set<String> words = toWordSet(fetched.get(i));
+			for (String word : words) {
+				if (!previous.contains(word)) {
+					added.add(word);
+				}
+			}
+			for (String word : previous) {
+				if (!words.contains(word)) {
+					removed++;
+				}
+			}
+			current.put(location, words);
+			bytes += wordsBytes(fetched.get(i));
+		}
+		if (current.isEmpty()) {
+			return 0;
+		}
+		remoteMainWords.putAll(current);
+		if (removed > 0) {
+			// 删除的词条可能仍由本地词典或其他远程词典提供，与全部来源比较后再修改
+			return bytes + reloadMainDict();
+		}
+		// 只有新增的词条时直接加入主词典，不必读取其他词典
+		if (!added.isEmpty()) {
+			bytes += updateMainDict(toCharArrays(added), Collections.<char[]>emptyList());
+		}
+		logger.info("[Dict Loading] {} reloaded incrementally, {} words added", current.keySet(), added.size());
+		return bytes;
+	}
+
+	private long reloadRemoteStopWords(List<String> locations) {
+		List<List<char[]>> fetched = fetchRemoteDicts(locations);
+		StopWordSet stopWords;
+		synchronized (writeLock) {
+			Map<String, List<char[]>> sources = new LinkedHashMap<String, List<char[]>>(stopWordSources);
+			boolean changed = false;
+			for (int i = 0; i < locations.size(); i++) {
+				if (fetched.get(i) != null) {
+					sources.put(locations.get(i), fetched.get(i));
+					changed = true;
+				}
+			}
+			if (!changed) {
+				return 0;
+			}
+			stopWords = compileStopWords(sources);
+			_StopWords = stopWords;
+			stopWordSources = sources;
+			publishSnapshot();
+		}
+		logger.info("[Dict Loading] {} reloaded, {} stop words in total", locations, stopWords.size());
+		return stopWords.ramBytesUsed();
+	}
+
+	private static Set<String> toWordSet(List<char[]> words) {
+		Set<String> set = new HashSet<String>(words.size() * 2);
+		for (char[] word : words) {
+			set.add(new String(word));
+		}
+		return set;
+	}
+
+	/**
+	 * 统计当前使用的各个词典占用的内存
+	 * 主词典包括编译后的词典，以及保留的词典树和已构建的Aho-Corasick自动机
+	 * @return List<DictStats>
+	 */
+	public List<DictStats> getStats() {
+		List<DictStats> stats = new ArrayList<DictStats>();
+		DictionarySnapshot current = snapshot;
+		stats.add(DictStats.of(DICT_MAIN, current.getMainTrie()));
+		synchronized (writeLock) {
+			if (_MainDict != null) {
+				stats.add(DictStats.of(DICT_MAIN, null, _MainDict));
+			}
+		}
+		AhoCorasickAutomaton automaton = current.getMainAutomaton();
+		if (automaton != null) {
+			stats.add(DictStats.of(DICT_MAIN, automaton));
+		}
+		stats.add(DictStats.of(DICT_QUANTIFIER, current.getQuantifierTrie()));
+		stats.add(DictStats.of(DICT_STOP, current.getStopWords()));
+		return stats;
+	}
+
+	/**
+	 * 各个词典文件和远程词典单独加载时的统计，从快照加载的词典文件没有统计
+	 * @return List<DictStats>
+	 */
+	public List<DictStats> getSourceStats() {
+		return Collections.unmodifiableList(_SourceStats);
+	}
+
+	private void logStats() {
+		for (DictStats stats : getStats()) {
+			logger.info("[Dict Stats] {}", stats);
+		}
+		for (DictStats stats : getSourceStats()) {
+			logger.info("[Dict Stats] {}", stats);
+		}
 	}
 
 }
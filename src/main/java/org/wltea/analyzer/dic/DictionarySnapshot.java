@@ -0,0 +1,77 @@
+package org.wltea.analyzer.dic;
+
+/**
+ * 词典的不可变快照
+ *
+ * 主词典、量词词典和停止词作为一个整体发布：加载、重新加载或增删词条后发布新的快照，已发布的快照不再修改。
+ * 分词器在每篇文档开始时取一个快照，整篇文档的查询都使用它，重新加载期间同一篇文档不会混用新旧词典，
+ * 也不必在每个字符上访问Dictionary单例。
+ */
+public final class DictionarySnapshot {
+
+	//版本号，每发布一次加1
+	private final long version;
+
+	private final DictTrie mainTrie;
+
+	private final DictTrie quantifierTrie;
+
+	private final StopWordSet stopWords;
+
+	//由主词典构建的Aho-Corasick自动机，由发布快照的线程构建好后随快照一起发布，没有分词器使用时为null
+	private final AhoCorasickAutomaton mainAutomaton;
+
+	DictionarySnapshot(long version, DictTrie mainTrie, DictTrie quantifierTrie, StopWordSet stopWords,
+			AhoCorasickAutomaton mainAutomaton) {
+		this.version = version;
+		this.mainTrie = mainTrie;
+		this.quantifierTrie = quantifierTrie;
+		this.stopWords = stopWords;
+		this.mainAutomaton = mainAutomaton;
+	}
+
+	/**
+	 * 快照的版本号，较新的快照版本号较大
+	 * @return long
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * 获取主词典，供分词器不创建Hit直接匹配
+	 * @return DictTrie
+	 */
+	public DictTrie getMainTrie() {
+		return mainTrie;
+	}
+
+	/**
+	 * 获取量词词典，供分词器不创建Hit直接匹配
+	 * @return DictTrie
+	 */
+	public DictTrie getQuantifierTrie() {
+		return quantifierTrie;
+	}
+
+	/**
+	 * 判断是否是停止词
+	 * @return boolean
+	 */
+	public boolean isStopWord(char[] charArray, int begin, int length) {
+		return stopWords.contains(charArray, begin, length);
+	}
+
+	/**
+	 * 获取主词典的Aho-Corasick自动机
+	 * 自动机在发布快照前已构建好，分词线程不会等待构建；没有调用过Dictionary.useMainAutomaton时为null
+	 * @return AhoCorasickAutomaton
+	 */
+	public AhoCorasickAutomaton getMainAutomaton() {
+		return mainAutomaton;
+	}
+
+	StopWordSet getStopWords() {
+		return stopWords;
+	}
+}
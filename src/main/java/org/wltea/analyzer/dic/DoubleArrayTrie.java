@@ -0,0 +1,659 @@
+package org.wltea.analyzer.dic;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 双数组Trie树
+ *
+ * 由加载完成的DictSegment词典树一次性编译生成，编译后只读；少量增删词条时在副本上修改，见{@link #copyWith}。
+ * 字符先按出现频度映射为紧凑的编码code，高频字编码小，使兄弟节点尽量靠拢；
+ * 节点s经字符c的转移位置为 t = base[s] + code[c]，当 check[t] 的低30位等于s时转移成立；
+ * check[t] 的高2位记录节点t的状态：是否成词，是否为词前缀。
+ * 一次查询只访问三个数组，没有对象引用和递归调用。
+ */
+final class DoubleArrayTrie implements DictTrie {
+
+	//空闲位置
+	static final int FREE = -1;
+	//根节点位置
+	static final int ROOT = 0;
+
+	//字符编码表，0表示词典中没有该字
+	private final char[] codes;
+
+	private final int[] base;
+
+	private final int[] check;
+
+	DoubleArrayTrie(char[] codes, int[] base, int[] check) {
+		this.codes = codes;
+		this.base = base;
+		this.check = check;
+	}
+
+	@Override
+	public int probe(char c) {
+		return this.probe(ROOT, c);
+	}
+
+	@Override
+	public int probe(int state, char c) {
+		int s = state & NODE_MASK;
+		int code = this.codes[c];
+		int t = this.base[s] + code;
+		if (code == 0 || t < 0 || t >= this.check.length) {
+			return UNMATCH;
+		}
+		int flags = this.check[t];
+		if ((flags & NODE_MASK) != s) {
+			return UNMATCH;
+		}
+		//check的高2位即为节点状态
+		return (flags & ~NODE_MASK) | t;
+	}
+
+	@Override
+	public void forEachWord(Consumer<char[]> action) {
+		char[] chars = decode(this.codes);
+		char[] buffer = new char[16];
+		for (int t = ROOT + 1; t < this.check.length; t++) {
+			int flags = this.check[t];
+			if (flags == FREE || (flags & MATCH) == 0) {
+				continue;
+			}
+			//沿父节点回溯到根节点，逆序得到词条
+			int length = 0;
+			for (int s = t; s != ROOT; s = this.check[s] & NODE_MASK) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, length << 1);
+				}
+				buffer[length++] = chars[s - this.base[this.check[s] & NODE_MASK]];
+			}
+			action.accept(reverse(buffer, length));
+		}
+	}
+
+	/**
+	 * 遍历全部可到达的节点，包括屏蔽词条后只剩前缀状态的节点
+	 * 节点的状态与probe到达该节点时返回的相同
+	 * @param visitor
+	 */
+	void forEachNode(NodeVisitor visitor) {
+		char[] chars = decode(this.codes);
+		for (int t = ROOT + 1; t < this.check.length; t++) {
+			int flags = this.check[t];
+			if (flags == FREE || DictTrie.isUnmatch(flags)) {
+				continue;
+			}
+			int parent = flags & NODE_MASK;
+			visitor.visit(t, parent, chars[t - this.base[parent]], (flags & ~NODE_MASK) | t);
+		}
+	}
+
+	/**
+	 * 节点的访问者
+	 */
+	interface NodeVisitor {
+
+		/**
+		 * @param node 节点句柄
+		 * @param parent 父节点句柄
+		 * @param label 由父节点转移到该节点的字符
+		 * @param state 节点的匹配状态
+		 */
+		void visit(int node, int parent, char label, int state);
+	}
+
+	/**
+	 * 由字符编码表得到编码到字符的映射
+	 */
+	static char[] decode(char[] codes) {
+		char[] chars = new char[Character.MAX_VALUE + 1];
+		for (int c = 0; c < codes.length; c++) {
+			if (codes[c] != 0) {
+				chars[codes[c]] = (char) c;
+			}
+		}
+		return chars;
+	}
+
+	static char[] reverse(char[] buffer, int length) {
+		char[] word = new char[length];
+		for (int i = 0; i < length; i++) {
+			word[i] = buffer[length - 1 - i];
+		}
+		return word;
+	}
+
+	/**
+	 * 数组长度
+	 */
+	int size() {
+		return this.check.length;
+	}
+
+	/**
+	 * 占用的堆内存字节数
+	 */
+	long ramBytesUsed() {
+		return 2L * this.codes.length + 4L * this.base.length + 4L * this.check.length;
+	}
+
+	char[] codes() {
+		return this.codes;
+	}
+
+	int[] base() {
+		return this.base;
+	}
+
+	int[] check() {
+		return this.check;
+	}
+
+	/**
+	 * 将词典树编译为双数组Trie
+	 * @param root 词典树根节点
+	 * @return DoubleArrayTrie
+	 */
+	static DoubleArrayTrie compile(DictSegment root) {
+		return new Builder(root).build();
+	}
+
+	/**
+	 * 在副本上增删词条，返回新的双数组Trie，原双数组Trie保持不变
+	 * 只改动涉及的位置，不重新编译整个词典
+	 * @param enabledWords 加入的词条
+	 * @param disabledWords 屏蔽的词条
+	 * @return DoubleArrayTrie
+	 */
+	DoubleArrayTrie copyWith(Collection<char[]> enabledWords, Collection<char[]> disabledWords) {
+		return update(new Updater(this.codes.clone(), this.base.clone(), this.check.clone()), enabledWords, disabledWords);
+	}
+
+	/**
+	 * 直接在本对象的数组上增删词条，只用于尚未发布给查询线程的副本，如映射快照复制到堆上的双数组
+	 * @param enabledWords 加入的词条
+	 * @param disabledWords 屏蔽的词条
+	 * @return DoubleArrayTrie
+	 */
+	DoubleArrayTrie updateInPlace(Collection<char[]> enabledWords, Collection<char[]> disabledWords) {
+		return update(new Updater(this.codes, this.base, this.check), enabledWords, disabledWords);
+	}
+
+	private static DoubleArrayTrie update(Updater updater, Collection<char[]> enabledWords, Collection<char[]> disabledWords) {
+		for (char[] word : enabledWords) {
+			updater.enable(word);
+		}
+		for (char[] word : disabledWords) {
+			updater.disable(word);
+		}
+		return updater.build();
+	}
+
+	/**
+	 * 双数组修改器
+	 *
+	 * 屏蔽词条只清除成词标记，与词典树屏蔽词条时保留节点相同；
+	 * 加入词条时新节点放在父节点base对应的空闲位置，位置已被占用时把父节点的全部子节点迁移到新的base，
+	 * 并把孙节点的check指向迁移后的位置。词典中没有的字追加新的编码。
+	 */
+	private static class Updater {
+
+		private final char[] codes;
+		private int[] base;
+		private int[] check;
+		//已使用的最大编码
+		private int maxCode;
+		//此前的位置均已占用
+		private int nextCheckPos = ROOT + 1;
+		//子节点链表，首次迁移时扫描check建立：firstChild[s]为节点s的一个子节点，nextSibling[t]为t的下一个兄弟节点，0表示没有
+		private int[] firstChild;
+		private int[] nextSibling;
+
+		Updater(char[] codes, int[] base, int[] check) {
+			this.codes = codes;
+			this.base = base;
+			this.check = check;
+			for (char code : codes) {
+				this.maxCode = Math.max(this.maxCode, code);
+			}
+		}
+
+		void enable(char[] word) {
+			if (word.length == 0) {
+				return;
+			}
+			int s = ROOT;
+			for (char c : word) {
+				int code = this.codeOf(c);
+				int t = this.child(s, code);
+				s = t > 0 ? t : this.insert(s, code);
+			}
+			this.check[s] |= MATCH;
+		}
+
+		void disable(char[] word) {
+			int s = ROOT;
+			for (int i = 0; i < word.length && s >= 0; i++) {
+				int code = this.codes[word[i]];
+				s = code == 0 ? -1 : this.child(s, code);
+			}
+			if (s > 0) {
+				this.check[s] &= ~MATCH;
+			}
+		}
+
+		DoubleArrayTrie build() {
+			return new DoubleArrayTrie(this.codes, this.base, this.check);
+		}
+
+		private int codeOf(char c) {
+			if (this.codes[c] == 0) {
+				if (this.maxCode == Character.MAX_VALUE) {
+					throw new IllegalStateException("词典字符过多，无法编译为双数组Trie");
+				}
+				this.codes[c] = (char) ++this.maxCode;
+			}
+			return this.codes[c];
+		}
+
+		/**
+		 * 节点s经编码code转移到的位置，不存在时返回-1
+		 */
+		private int child(int s, int code) {
+			if (!this.hasChildren(s)) {
+				return -1;
+			}
+			int t = this.base[s] + code;
+			if (t <= ROOT || t >= this.check.length || this.check[t] == FREE || (this.check[t] & NODE_MASK) != s) {
+				return -1;
+			}
+			return t;
+		}
+
+		/**
+		 * 没有子节点的节点base无意义
+		 */
+		private boolean hasChildren(int s) {
+			return s == ROOT || (this.check[s] & PREFIX) != 0;
+		}
+
+		/**
+		 * 为节点s加入编码为code的子节点，返回子节点的位置
+		 */
+		private int insert(int s, int code) {
+			if (!this.hasChildren(s)) {
+				this.base[s] = this.findBase(new int[] { code });
+			} else if (!this.isFree(this.base[s] + code)) {
+				this.relocate(s, code);
+			}
+			int t = this.base[s] + code;
+			this.ensureCapacity(t);
+			this.check[t] = s;
+			this.base[t] = 0;
+			if (s != ROOT) {
+				this.check[s] |= PREFIX;
+			}
+			if (this.firstChild != null) {
+				this.firstChild[t] = 0;
+				this.link(s, t);
+			}
+			return t;
+		}
+
+		/**
+		 * 把节点s的全部子节点迁移到能同时容纳新编码的base
+		 * 子节点和孙节点都沿链表查找，迁移的代价与子节点数成正比，与编码表大小无关
+		 */
+		private void relocate(int s, int code) {
+			if (this.firstChild == null) {
+				this.linkChildren();
+			}
+			int[] childCodes = this.childCodes(s, code);
+			int oldBase = this.base[s];
+			int newBase = this.findBase(childCodes);
+			this.firstChild[s] = 0;
+			//最后一个是新加入的编码，由insert加入
+			for (int i = 0; i < childCodes.length - 1; i++) {
+				int from = oldBase + childCodes[i];
+				int to = newBase + childCodes[i];
+				this.ensureCapacity(to);
+				this.base[to] = this.base[from];
+				this.check[to] = this.check[from];
+				for (int g = this.firstChild[from]; g != 0; g = this.nextSibling[g]) {
+					this.check[g] = (this.check[g] & ~NODE_MASK) | to;
+				}
+				this.firstChild[to] = this.firstChild[from];
+				this.firstChild[from] = 0;
+				this.link(s, to);
+				this.base[from] = 0;
+				this.check[from] = FREE;
+				this.nextCheckPos = Math.min(this.nextCheckPos, from);
+			}
+			this.base[s] = newBase;
+		}
+
+		/**
+		 * 节点s现有子节点的编码，末尾追加code
+		 */
+		private int[] childCodes(int s, int code) {
+			int count = 1;
+			for (int t = this.firstChild[s]; t != 0; t = this.nextSibling[t]) {
+				count++;
+			}
+			int[] childCodes = new int[count];
+			int i = 0;
+			for (int t = this.firstChild[s]; t != 0; t = this.nextSibling[t]) {
+				childCodes[i++] = t - this.base[s];
+			}
+			childCodes[i] = code;
+			return childCodes;
+		}
+
+		/**
+		 * 扫描一遍check，按父节点建立子节点链表
+		 */
+		private void linkChildren() {
+			this.firstChild = new int[this.check.length];
+			this.nextSibling = new int[this.check.length];
+			for (int t = ROOT + 1; t < this.check.length; t++) {
+				if (this.check[t] != FREE) {
+					this.link(this.check[t] & NODE_MASK, t);
+				}
+			}
+		}
+
+		private void link(int s, int t) {
+			this.nextSibling[t] = this.firstChild[s];
+			this.firstChild[s] = t;
+		}
+
+		/**
+		 * 选取base，使全部编码对应的位置都空闲
+		 */
+		private int findBase(int[] childCodes) {
+			int first = childCodes[0];
+			for (int code : childCodes) {
+				first = Math.min(first, code);
+			}
+			while (!this.isFree(this.nextCheckPos)) {
+				this.nextCheckPos++;
+			}
+			for (int pos = this.nextCheckPos; ; pos++) {
+				if (!this.isFree(pos)) {
+					continue;
+				}
+				int b = pos - first;
+				boolean fits = true;
+				for (int code : childCodes) {
+					if (!this.isFree(b + code)) {
+						fits = false;
+						break;
+					}
+				}
+				if (fits) {
+					return b;
+				}
+			}
+		}
+
+		private boolean isFree(int pos) {
+			return pos > ROOT && (pos >= this.check.length || this.check[pos] == FREE);
+		}
+
+		private void ensureCapacity(int pos) {
+			if (pos > NODE_MASK) {
+				throw new IllegalStateException("词典过大，无法编译为双数组Trie");
+			}
+			if (pos >= this.check.length) {
+				int capacity = Math.max(pos + 1, this.check.length + (this.check.length >>> 4));
+				int length = this.check.length;
+				this.base = Arrays.copyOf(this.base, capacity);
+				this.check = Arrays.copyOf(this.check, capacity);
+				Arrays.fill(this.check, length, capacity, FREE);
+				if (this.firstChild != null) {
+					this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+					this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 双数组构造器
+	 *
+	 * 先按广度优先顺序为节点编号，同一节点的子节点编号连续，并统计字符频度生成编码表；
+	 * 再按子节点数从多到少为每个节点选取base，子节点越多越难嵌入空位，需要优先放置；
+	 * 最后从根节点开始计算每个节点的实际位置，填充base和check。
+	 */
+	private static class Builder {
+
+		//节点字符，编号后替换为字符编码
+		private char[] labels;
+		//字符编码表
+		private final char[] codes = new char[Character.MAX_VALUE + 1];
+		//节点状态
+		private int[] flags;
+		//第一个子节点编号
+		private int[] firstChild;
+		//子节点数目
+		private int[] childCount;
+		//节点数目
+		private int nodeCount;
+
+		//按节点编号记录选定的base
+		private int[] nodeBase;
+		//已占用位置的位图
+		private long[] used = new long[1 << 10];
+		//已使用的最大位置+1
+		private int size = 1;
+		//此前的位置均已占用
+		private int nextCheckPos = 1;
+
+		Builder(DictSegment root) {
+			this.number(root);
+			this.encode();
+		}
+
+		/**
+		 * 广度优先为节点编号
+		 */
+		private void number(DictSegment root) {
+			int capacity = 1 << 12;
+			this.labels = new char[capacity];
+			this.flags = new int[capacity];
+			this.firstChild = new int[capacity];
+			this.childCount = new int[capacity];
+
+			ArrayDeque<DictSegment> queue = new ArrayDeque<DictSegment>();
+			queue.add(root);
+			this.nodeCount = 1;
+			for (int id = 0; !queue.isEmpty(); id++) {
+				DictSegment segment = queue.poll();
+				DictSegment[] children = segment.getChildren();
+				this.firstChild[id] = this.nodeCount;
+				this.childCount[id] = children.length;
+				for (DictSegment child : children) {
+					if (this.nodeCount == this.labels.length) {
+						this.grow();
+					}
+					int flag = 0;
+					if (child.isWord()) {
+						flag |= MATCH;
+					}
+					if (child.hasNextNode()) {
+						flag |= PREFIX;
+					}
+					this.labels[this.nodeCount] = child.getNodeChar();
+					this.flags[this.nodeCount] = flag;
+					this.nodeCount++;
+					queue.add(child);
+				}
+			}
+		}
+
+		/**
+		 * 按出现频度为字符编码，并将节点字符替换为编码
+		 */
+		private void encode() {
+			final int[] frequency = new int[Character.MAX_VALUE + 1];
+			for (int id = 1; id < this.nodeCount; id++) {
+				frequency[this.labels[id]]++;
+			}
+			Integer[] chars = new Integer[Character.MAX_VALUE + 1];
+			for (int c = 0; c < chars.length; c++) {
+				chars[c] = c;
+			}
+			Arrays.sort(chars, (a, b) -> frequency[b] - frequency[a]);
+			for (int code = 1; code < chars.length && frequency[chars[code - 1]] > 0; code++) {
+				this.codes[chars[code - 1]] = (char) code;
+			}
+			if (frequency[chars[chars.length - 1]] > 0) {
+				throw new IllegalStateException("词典字符过多，无法编译为双数组Trie");
+			}
+			for (int id = 1; id < this.nodeCount; id++) {
+				this.labels[id] = this.codes[this.labels[id]];
+			}
+		}
+
+		private void grow() {
+			int capacity = this.labels.length << 1;
+			this.labels = Arrays.copyOf(this.labels, capacity);
+			this.flags = Arrays.copyOf(this.flags, capacity);
+			this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+			this.childCount = Arrays.copyOf(this.childCount, capacity);
+		}
+
+		DoubleArrayTrie build() {
+			this.nodeBase = new int[this.nodeCount];
+			this.setUsed(ROOT);
+			for (int id : this.orderByChildCount()) {
+				this.nodeBase[id] = this.place(id);
+			}
+
+			int[] base = new int[this.size];
+			int[] check = new int[this.size];
+			//根节点没有父节点，其check保持空闲，不会被任何转移命中
+			Arrays.fill(check, FREE);
+			//按编号顺序，父节点的位置总是先于子节点确定
+			int[] position = new int[this.nodeCount];
+			position[0] = ROOT;
+			for (int id = 0; id < this.nodeCount; id++) {
+				int count = this.childCount[id];
+				if (count == 0) {
+					continue;
+				}
+				int s = position[id];
+				int b = this.nodeBase[id];
+				base[s] = b;
+				for (int child = this.firstChild[id], end = child + count; child < end; child++) {
+					int t = b + this.labels[child];
+					position[child] = t;
+					check[t] = s | this.flags[child];
+				}
+			}
+			return new DoubleArrayTrie(this.codes, base, check);
+		}
+
+		/**
+		 * 有子节点的节点编号，按子节点数降序排列
+		 */
+		private int[] orderByChildCount() {
+			int max = 0;
+			int total = 0;
+			for (int id = 0; id < this.nodeCount; id++) {
+				if (this.childCount[id] > 0) {
+					max = Math.max(max, this.childCount[id]);
+					total++;
+				}
+			}
+			//计数排序
+			int[] start = new int[max + 2];
+			for (int id = 0; id < this.nodeCount; id++) {
+				if (this.childCount[id] > 0) {
+					start[max - this.childCount[id] + 1]++;
+				}
+			}
+			for (int i = 1; i < start.length; i++) {
+				start[i] += start[i - 1];
+			}
+			int[] order = new int[total];
+			for (int id = 0; id < this.nodeCount; id++) {
+				if (this.childCount[id] > 0) {
+					order[start[max - this.childCount[id]]++] = id;
+				}
+			}
+			return order;
+		}
+
+		/**
+		 * 为节点选取base，使其全部子节点都落在空闲位置
+		 * 每次用位运算同时检查64个连续的候选位置
+		 */
+		private int place(int id) {
+			int from = this.firstChild[id];
+			int to = from + this.childCount[id];
+			int first = Character.MAX_VALUE;
+			int last = 0;
+			for (int child = from; child < to; child++) {
+				first = Math.min(first, this.labels[child]);
+				last = Math.max(last, this.labels[child]);
+			}
+
+			while (this.isUsed(this.nextCheckPos)) {
+				this.nextCheckPos++;
+			}
+			int b;
+			for (int pos = this.nextCheckPos; ; pos += 64) {
+				//第i位为1表示第一个子节点放在pos+i时，全部子节点都空闲
+				long candidates = ~this.usedWord(pos);
+				for (int child = from; child < to && candidates != 0; child++) {
+					candidates &= ~this.usedWord(pos + this.labels[child] - first);
+				}
+				if (candidates != 0) {
+					b = pos + Long.numberOfTrailingZeros(candidates) - first;
+					break;
+				}
+			}
+			if (b + last + 1 > NODE_MASK) {
+				throw new IllegalStateException("词典过大，无法编译为双数组Trie");
+			}
+			for (int child = from; child < to; child++) {
+				this.setUsed(b + this.labels[child]);
+			}
+			this.size = Math.max(this.size, b + last + 1);
+			return b;
+		}
+
+		private boolean isUsed(int pos) {
+			int index = pos >>> 6;
+			return index < this.used.length && (this.used[index] & (1L << pos)) != 0;
+		}
+
+		private void setUsed(int pos) {
+			int index = pos >>> 6;
+			if (index >= this.used.length) {
+				this.used = Arrays.copyOf(this.used, Math.max(index + 1, this.used.length << 1));
+			}
+			this.used[index] |= 1L << pos;
+		}
+
+		/**
+		 * 从pos开始的64个位置的占用位图
+		 */
+		private long usedWord(int pos) {
+			int index = pos >>> 6;
+			int shift = pos & 63;
+			long low = index < this.used.length ? this.used[index] >>> shift : 0L;
+			if (shift == 0) {
+				return low;
+			}
+			long high = index + 1 < this.used.length ? this.used[index + 1] << (64 - shift) : 0L;
+			return low | high;
+		}
+	}
+}
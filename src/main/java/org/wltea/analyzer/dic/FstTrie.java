@@ -0,0 +1,160 @@
+package org.wltea.analyzer.dic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.IntsRefFSTEnum;
+import org.apache.lucene.util.fst.NoOutputs;
+
+/**
+ * 基于Lucene FST的词典
+ *
+ * 词条按UTF-16字符作为输入标签编译为最小化的FST，整个词典保存在一个字节数组中，没有逐节点的对象开销。
+ * 匹配状态的低30位为FST节点地址，逐个字符调用findTargetArc沿弧向下匹配；
+ * 查找弧需要的Arc和BytesReader按线程复用，匹配过程不创建对象。
+ * 根节点的出弧有几千条，从根节点出发的转移改由RootTable按字符直接查表。
+ */
+final class FstTrie implements DictTrie {
+
+	private static final NoOutputs OUTPUTS = NoOutputs.getSingleton();
+
+	//词典为空时为null
+	private final FST<Object> fst;
+	//根节点地址
+	private final long root;
+	//节点数
+	private final long nodeCount;
+
+	private final ThreadLocal<Cursor> cursors;
+	//根节点分派表，词典为空时为null
+	private final RootTable rootTable;
+
+	private FstTrie(FST<Object> fst, long nodeCount) {
+		this.fst = fst;
+		this.root = fst == null ? 0 : fst.getFirstArc(new FST.Arc<Object>()).target;
+		this.nodeCount = nodeCount;
+		this.cursors = ThreadLocal.withInitial(() -> new Cursor(this.fst.getBytesReader()));
+		this.rootTable = fst == null ? null : RootTable.build(c -> this.follow(this.root, c));
+	}
+
+	@Override
+	public int probe(char c) {
+		if (this.rootTable == null) {
+			return UNMATCH;
+		}
+		return this.rootTable.probe(c);
+	}
+
+	@Override
+	public int probe(int state, char c) {
+		int target = state & NODE_MASK;
+		if (target == 0) {
+			return UNMATCH;
+		}
+		return this.follow(target, c);
+	}
+
+	private int follow(long target, char c) {
+		Cursor cursor = this.cursors.get();
+		cursor.follow.target = target;
+		FST.Arc<Object> arc;
+		try {
+			arc = this.fst.findTargetArc(c, cursor.follow, cursor.arc, cursor.in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (arc == null) {
+			return UNMATCH;
+		}
+		int state = arc.isFinal() ? MATCH : UNMATCH;
+		//没有出弧的终止节点地址为负数
+		if (FST.targetHasArcs(arc)) {
+			state |= PREFIX | (int) arc.target;
+		}
+		return state;
+	}
+
+	@Override
+	public void forEachWord(Consumer<char[]> action) {
+		if (this.fst == null) {
+			return;
+		}
+		IntsRefFSTEnum<Object> words = new IntsRefFSTEnum<Object>(this.fst);
+		try {
+			for (IntsRefFSTEnum.InputOutput<Object> word = words.next(); word != null; word = words.next()) {
+				IntsRef input = word.input;
+				char[] charArray = new char[input.length];
+				for (int i = 0; i < input.length; i++) {
+					charArray[i] = (char) input.ints[input.offset + i];
+				}
+				action.accept(charArray);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 节点数
+	 */
+	long nodeCount() {
+		return this.nodeCount;
+	}
+
+	/**
+	 * 占用的堆内存字节数
+	 */
+	long ramBytesUsed() {
+		return this.fst == null ? 0 : this.fst.ramBytesUsed() + this.rootTable.ramBytesUsed();
+	}
+
+	/**
+	 * 将词典树编译为FST
+	 * FST要求按输入排序依次加入词条，词典树按字符顺序深度优先遍历即为有序
+	 * @param root 词典树根节点
+	 * @return FstTrie
+	 */
+	static FstTrie compile(DictSegment root) {
+		Builder<Object> builder = new Builder<Object>(FST.INPUT_TYPE.BYTE2, OUTPUTS);
+		try {
+			add(builder, root, new IntsRefBuilder());
+			FST<Object> fst = builder.finish();
+			if (fst != null && fst.ramBytesUsed() > NODE_MASK) {
+				throw new IllegalStateException("词典过大，无法编译为FST");
+			}
+			return new FstTrie(fst, builder.getNodeCount());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void add(Builder<Object> builder, DictSegment segment, IntsRefBuilder input) throws IOException {
+		for (DictSegment child : segment.getChildren()) {
+			input.append(child.getNodeChar());
+			if (child.isWord()) {
+				builder.add(input.get(), OUTPUTS.getNoOutput());
+			}
+			add(builder, child, input);
+			input.setLength(input.length() - 1);
+		}
+	}
+
+	/**
+	 * 按线程复用的查找状态
+	 */
+	private static final class Cursor {
+
+		private final FST.Arc<Object> follow = new FST.Arc<Object>();
+		private final FST.Arc<Object> arc = new FST.Arc<Object>();
+		private final FST.BytesReader in;
+
+		Cursor(FST.BytesReader in) {
+			this.in = in;
+		}
+	}
+}
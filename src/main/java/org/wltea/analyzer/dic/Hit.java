@@ -42,6 +42,9 @@ public class Hit {
 	
 	//记录词典匹配过程中，当前匹配到的词典分支节点
 	private DictSegment matchedDictSegment; 
+	//记录编译词典匹配过程中，当前匹配到的词典及匹配状态
+	private DictTrie matchedTrie;
+	private int matchedState;
 	/*
 	 * 词段开始位置
 	 */
@@ -97,6 +100,22 @@ public class Hit {
 	public void setMatchedDictSegment(DictSegment matchedDictSegment) {
 		this.matchedDictSegment = matchedDictSegment;
 	}
+
+	DictTrie getMatchedTrie() {
+		return matchedTrie;
+	}
+
+	void setMatchedTrie(DictTrie matchedTrie) {
+		this.matchedTrie = matchedTrie;
+	}
+
+	int getMatchedState() {
+		return matchedState;
+	}
+
+	void setMatchedState(int matchedState) {
+		this.matchedState = matchedState;
+	}
 	
 	public int getBegin() {
 		return begin;
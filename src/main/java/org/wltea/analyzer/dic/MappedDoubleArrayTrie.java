@@ -0,0 +1,126 @@
+package org.wltea.analyzer.dic;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 映射到内存的双数组Trie树
+ *
+ * 与DoubleArrayTrie的结构完全相同，只是三个数组直接读自快照文件的内存映射，不占用堆内存；
+ * 运行时写入的快照位于各节点自己的数据目录，只有打包时预编译的config/compiled快照会被同一台机器上的多个节点共同映射，共享操作系统的页缓存。
+ */
+final class MappedDoubleArrayTrie implements DictTrie {
+
+	private static final int FREE = DoubleArrayTrie.FREE;
+	private static final int ROOT = DoubleArrayTrie.ROOT;
+
+	//字符编码表，0表示词典中没有该字
+	private final CharBuffer codes;
+
+	private final IntBuffer base;
+
+	private final IntBuffer check;
+
+	private final int size;
+
+	MappedDoubleArrayTrie(CharBuffer codes, IntBuffer base, IntBuffer check) {
+		this.codes = codes;
+		this.base = base;
+		this.check = check;
+		this.size = check.limit();
+	}
+
+	@Override
+	public int probe(char c) {
+		return this.probe(ROOT, c);
+	}
+
+	@Override
+	public int probe(int state, char c) {
+		int s = state & NODE_MASK;
+		int code = this.codes.get(c);
+		if (code == 0) {
+			return UNMATCH;
+		}
+		int t = this.base.get(s) + code;
+		if (t < 0 || t >= this.size) {
+			return UNMATCH;
+		}
+		int flags = this.check.get(t);
+		if ((flags & NODE_MASK) != s) {
+			return UNMATCH;
+		}
+		//check的高2位即为节点状态
+		return (flags & ~NODE_MASK) | t;
+	}
+
+	@Override
+	public void forEachWord(Consumer<char[]> action) {
+		char[] table = new char[Character.MAX_VALUE + 1];
+		this.codes.duplicate().get(table);
+		char[] chars = DoubleArrayTrie.decode(table);
+		char[] buffer = new char[16];
+		for (int t = ROOT + 1; t < this.size; t++) {
+			int flags = this.check.get(t);
+			if (flags == FREE || (flags & MATCH) == 0) {
+				continue;
+			}
+			//沿父节点回溯到根节点，逆序得到词条
+			int length = 0;
+			for (int s = t; s != ROOT; s = this.check.get(s) & NODE_MASK) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, length << 1);
+				}
+				buffer[length++] = chars[s - this.base.get(this.check.get(s) & NODE_MASK)];
+			}
+			action.accept(DoubleArrayTrie.reverse(buffer, length));
+		}
+	}
+
+	/**
+	 * 遍历全部可到达的节点，见{@link DoubleArrayTrie#forEachNode}
+	 * @param visitor
+	 */
+	void forEachNode(DoubleArrayTrie.NodeVisitor visitor) {
+		char[] table = new char[Character.MAX_VALUE + 1];
+		this.codes.duplicate().get(table);
+		char[] chars = DoubleArrayTrie.decode(table);
+		for (int t = ROOT + 1; t < this.size; t++) {
+			int flags = this.check.get(t);
+			if (flags == FREE || DictTrie.isUnmatch(flags)) {
+				continue;
+			}
+			int parent = flags & NODE_MASK;
+			visitor.visit(t, parent, chars[t - this.base.get(parent)], (flags & ~NODE_MASK) | t);
+		}
+	}
+
+	/**
+	 * 数组长度
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * 复制为堆上的双数组Trie，用于在此基础上增删词条
+	 */
+	DoubleArrayTrie copyToHeap() {
+		char[] codeArray = new char[this.codes.limit()];
+		this.codes.duplicate().get(codeArray);
+		int[] baseArray = new int[this.size];
+		this.base.duplicate().get(baseArray);
+		int[] checkArray = new int[this.size];
+		this.check.duplicate().get(checkArray);
+		return new DoubleArrayTrie(codeArray, baseArray, checkArray);
+	}
+
+	/**
+	 * 映射到内存的字节数
+	 */
+	long mappedBytes() {
+		return 2L * this.codes.limit() + 8L * this.size;
+	}
+}
@@ -3,6 +3,8 @@ package org.wltea.analyzer.dic;
 import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -17,6 +19,13 @@ public class Monitor implements Runnable {
 
 	private static final Logger logger = ESPluginLoggerFactory.getLogger(Monitor.class.getName());
 
+	/*
+	 * 熔断状态：closed 正常轮询，open 连续失败已熔断，half_open 熔断后正在探测
+	 */
+	public static final String CLOSED = "closed";
+	public static final String OPEN = "open";
+	public static final String HALF_OPEN = "half_open";
+
 	private static CloseableHttpClient httpclient = HttpClients.createDefault();
 	/*
 	 * 上次更改时间
@@ -32,30 +41,160 @@ public class Monitor implements Runnable {
 	 */
 	private String location;
 
-	public Monitor(String location) {
+	/*
+	 * 该地址所属的词典
+	 */
+	private String dictName;
+
+	/*
+	 * 发现变化时通知的词典
+	 */
+	private final Dictionary dictionary;
+
+	/*
+	 * 轮询线程池，每个地址每次轮询结束后再安排下一次，同一地址不会并发请求
+	 */
+	private final ScheduledExecutorService executor;
+
+	private final PollPolicy policy;
+
+	/*
+	 * 推送变更的通道，未配置时为null；通道连通期间不再轮询，由通道通知时才检查
+	 */
+	private final ChangeChannel channel;
+
+	private volatile String state = CLOSED;
+
+	/*
+	 * 连续失败次数
+	 */
+	private volatile int consecutiveFailures;
+
+	/*
+	 * 距下一次轮询的延迟，毫秒
+	 */
+	private volatile long nextDelay;
+
+	Monitor(Dictionary dictionary, String location, String dictName, ScheduledExecutorService executor, PollPolicy policy,
+			ChangeChannel channel) {
+		this.dictionary = dictionary;
 		this.location = location;
+		this.dictName = dictName;
+		this.executor = executor;
+		this.policy = policy;
+		this.channel = channel;
 		this.last_modified = null;
 		this.eTags = null;
 	}
 
+	/**
+	 * 开始轮询
+	 */
+	void start() {
+		this.schedule(policy.initialDelay());
+	}
+
+	private void schedule(long delay) {
+		this.nextDelay = delay;
+		executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+	}
+
 	public void run() {
+		if (channel != null && channel.isConnected()) {
+			// 变更由通道推送，本轮不发请求，通道断开后恢复轮询
+			this.schedule(policy.nextDelay(0));
+			return;
+		}
+		if (OPEN.equals(state)) {
+			state = HALF_OPEN;
+		}
+		boolean success = false;
+		try {
+			success = this.poll();
+		} finally {
+			this.schedule(this.onPolled(success));
+		}
+	}
+
+	/**
+	 * 通道通知该地址可能有变化，立即检查一次，不影响轮询的调度
+	 */
+	void pollNow() {
+		executor.execute(this::poll);
+	}
+
+	/*
+	 * 定时轮询和通道通知可能同时检查，同一地址的请求串行执行
+	 */
+	private synchronized boolean poll() {
 		SpecialPermission.check();
-		AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
-			this.runUnprivileged();
-			return null;
-		});
+		return AccessController.doPrivileged((PrivilegedAction<Boolean>) this::runUnprivileged);
+	}
+
+	/**
+	 * 根据本次轮询的结果更新熔断状态
+	 * @return 下一次轮询的延迟
+	 */
+	private long onPolled(boolean success) {
+		if (success) {
+			if (!CLOSED.equals(state)) {
+				logger.info("remote_ext_dict {} recovered, circuit closed", location);
+			}
+			state = CLOSED;
+			consecutiveFailures = 0;
+			return policy.nextDelay(0);
+		}
+		consecutiveFailures++;
+		if (HALF_OPEN.equals(state) || consecutiveFailures >= policy.failureThreshold()) {
+			if (CLOSED.equals(state)) {
+				logger.warn("remote_ext_dict {} failed {} times in a row, circuit opened", location, consecutiveFailures);
+			}
+			state = OPEN;
+			return policy.openDelay();
+		}
+		return policy.nextDelay(consecutiveFailures);
+	}
+
+	/**
+	 * 清除记录的Last-Modified和ETag，下一次检查时视为有变化
+	 * 发现变化后下载词典失败时调用，避免这次变化被跳过
+	 */
+	synchronized void invalidate() {
+		last_modified = null;
+		eTags = null;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public String getDictName() {
+		return dictName;
+	}
+
+	public String getState() {
+		return state;
+	}
+
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	public long getNextDelayMillis() {
+		return nextDelay;
 	}
 
 	/**
 	 * 监控流程：
 	 *  ①向词库服务器发送Head请求
 	 *  ②从响应中获取Last-Modify、ETags字段值，判断是否变化
-	 *  ③如果未变化，休眠1min，返回第①步
-	 * 	④如果有变化，重新加载词典
-	 *  ⑤休眠1min，返回第①步
+	 *  ③如果未变化，等待一个轮询间隔，返回第①步
+	 * 	④如果有变化，通知重新加载词典，静默窗口内的多个变化合并为一次重新加载
+	 *  ⑤等待一个轮询间隔，返回第①步；请求失败时按退避延长间隔
+	 * @return 请求是否成功，返回200或304即为成功
 	 */
 
-	public void runUnprivileged() {
+	public boolean runUnprivileged() {
 
 		//超时设置
 		RequestConfig rc = RequestConfig.custom().setConnectionRequestTimeout(10*1000)
@@ -83,20 +222,21 @@ public class Monitor implements Runnable {
 				if (((response.getLastHeader("Last-Modified")!=null) && !response.getLastHeader("Last-Modified").getValue().equalsIgnoreCase(last_modified))
 						||((response.getLastHeader("ETag")!=null) && !response.getLastHeader("ETag").getValue().equalsIgnoreCase(eTags))) {
 
-					// 远程词库有更新,需要重新加载词典，并修改last_modified,eTags
-					Dictionary.getSingleton().reLoadMainDict();
+					// 远程词库有更新,通知重新加载词典，并修改last_modified,eTags
+					dictionary.remoteDictChanged(dictName, location);
 					last_modified = response.getLastHeader("Last-Modified")==null?null:response.getLastHeader("Last-Modified").getValue();
 					eTags = response.getLastHeader("ETag")==null?null:response.getLastHeader("ETag").getValue();
 				}
+				return true;
 			}else if (response.getStatusLine().getStatusCode()==304) {
 				//没有修改，不做操作
-				//noop
+				return true;
 			}else{
 				logger.info("remote_ext_dict {} return bad code {}" , location , response.getStatusLine().getStatusCode() );
 			}
 
 		} catch (Exception e) {
-			logger.error("remote_ext_dict {} error!",e , location);
+			logger.error("remote_ext_dict {} error!", location, e);
 		}finally{
 			try {
 				if (response != null) {
@@ -106,6 +246,7 @@ public class Monitor implements Runnable {
 				logger.error(e.getMessage(), e);
 			}
 		}
+		return false;
 	}
 
 }
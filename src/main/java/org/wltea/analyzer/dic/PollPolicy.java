@@ -0,0 +1,73 @@
+package org.wltea.analyzer.dic;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 远程词典的轮询策略
+ *
+ * 每个远程词典单独调度：间隔加入随机抖动，大量节点不会同时请求词典服务器；
+ * 请求失败后按指数退避延长该地址的间隔，连续失败达到阈值后熔断，熔断期间每隔最大退避间隔只发送一次探测请求。
+ */
+final class PollPolicy {
+
+	//首次轮询的基础延迟，毫秒
+	private static final long INITIAL_DELAY = 10 * 1000;
+
+	//正常轮询间隔，毫秒
+	private final long interval;
+
+	//抖动幅度，间隔的百分比
+	private final int jitterPercent;
+
+	//退避的最大间隔，也是熔断后的探测间隔，毫秒
+	private final long maxBackoff;
+
+	//连续失败多少次后熔断
+	private final int failureThreshold;
+
+	PollPolicy(long interval, int jitterPercent, long maxBackoff, int failureThreshold) {
+		this.interval = Math.max(1, interval);
+		this.jitterPercent = Math.min(100, Math.max(0, jitterPercent));
+		this.maxBackoff = Math.max(this.interval, maxBackoff);
+		this.failureThreshold = Math.max(1, failureThreshold);
+	}
+
+	int failureThreshold() {
+		return failureThreshold;
+	}
+
+	/**
+	 * 首次轮询的延迟，在基础延迟上随机推后最多一个抖动幅度
+	 */
+	long initialDelay() {
+		long spread = interval * jitterPercent / 100;
+		return INITIAL_DELAY + (spread > 0 ? ThreadLocalRandom.current().nextLong(spread + 1) : 0);
+	}
+
+	/**
+	 * 下一次轮询的延迟
+	 * @param consecutiveFailures 连续失败次数，0表示上次成功
+	 */
+	long nextDelay(int consecutiveFailures) {
+		long delay = interval;
+		for (int i = 0; i < consecutiveFailures && delay < maxBackoff; i++) {
+			delay <<= 1;
+		}
+		return jitter(Math.min(delay, maxBackoff));
+	}
+
+	/**
+	 * 熔断后下一次探测的延迟
+	 */
+	long openDelay() {
+		return jitter(maxBackoff);
+	}
+
+	private long jitter(long delay) {
+		long spread = delay * jitterPercent / 100;
+		if (spread <= 0) {
+			return delay;
+		}
+		return delay - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1);
+	}
+}
@@ -0,0 +1,105 @@
+package org.wltea.analyzer.dic;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.apache.logging.log4j.Logger;
+import org.wltea.analyzer.help.ESPluginLoggerFactory;
+
+/**
+ * 合并远程词典的变更通知
+ *
+ * 多个远程词典往往由同一次发布一起更新，各自的监控线程先后发现变化。收到通知后不立即重新加载，
+ * 而是等待一个静默窗口，窗口内每来一个新通知就重新计时，窗口内没有新通知时把积累的全部地址交给一次重新加载。
+ * 持续有通知时，最晚在第一个通知后MAX_WAIT_WINDOWS个窗口执行，避免一直推迟。
+ */
+final class ReloadCoordinator {
+
+	private static final Logger logger = ESPluginLoggerFactory.getLogger(ReloadCoordinator.class.getName());
+
+	private static final int MAX_WAIT_WINDOWS = 4;
+
+	private final ScheduledExecutorService executor;
+
+	//静默窗口，毫秒
+	private final long quietWindow;
+
+	//重新加载，参数为词典名称到变化地址的映射，返回估算的峰值内存开销
+	private final ToLongFunction<Map<String, Set<String>>> reloader;
+
+	//尚未重新加载的地址，按词典名称分组
+	private Map<String, Set<String>> pending = new LinkedHashMap<String, Set<String>>();
+
+	private int pendingTriggers;
+
+	private long firstTriggerTime;
+
+	private ScheduledFuture<?> scheduled;
+
+	private volatile ReloadStats stats = ReloadStats.EMPTY;
+
+	ReloadCoordinator(ScheduledExecutorService executor, long quietWindow, ToLongFunction<Map<String, Set<String>>> reloader) {
+		this.executor = executor;
+		this.quietWindow = quietWindow;
+		this.reloader = reloader;
+	}
+
+	/**
+	 * 远程词典有变化
+	 * @param dictName 词典名称
+	 * @param location 远程词典地址
+	 */
+	synchronized void trigger(String dictName, String location) {
+		pending.computeIfAbsent(dictName, k -> new LinkedHashSet<String>()).add(location);
+		pendingTriggers++;
+		long now = System.currentTimeMillis();
+		if (scheduled == null) {
+			firstTriggerTime = now;
+		} else {
+			scheduled.cancel(false);
+		}
+		long deadline = firstTriggerTime + quietWindow * MAX_WAIT_WINDOWS;
+		long delay = Math.max(0, Math.min(quietWindow, deadline - now));
+		scheduled = executor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void flush() {
+		Map<String, Set<String>> batch;
+		int absorbed;
+		synchronized (this) {
+			batch = pending;
+			absorbed = pendingTriggers;
+			pending = new LinkedHashMap<String, Set<String>>();
+			pendingTriggers = 0;
+			scheduled = null;
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		int locations = 0;
+		for (Set<String> set : batch.values()) {
+			locations += set.size();
+		}
+		long start = System.currentTimeMillis();
+		long peakOverhead = 0;
+		try {
+			peakOverhead = reloader.applyAsLong(batch);
+		} catch (RuntimeException e) {
+			logger.error("[Dict Loading] reloading " + batch + " failed", e);
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		stats = stats.next(absorbed, locations, elapsed, peakOverhead);
+		logger.info("[Dict Loading] reload absorbed {} triggers from {} locations in {} ms, peak overhead {} bytes",
+				absorbed, locations, elapsed, peakOverhead);
+	}
+
+	ReloadStats getStats() {
+		return stats;
+	}
+}
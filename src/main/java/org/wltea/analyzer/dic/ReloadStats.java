@@ -0,0 +1,81 @@
+package org.wltea.analyzer.dic;
+
+/**
+ * 远程词典重新加载的统计
+ *
+ * 同一个静默窗口内收到的多次变更通知合并为一次重新加载，absorbedTriggers即最近一次重新加载合并的通知数。
+ * peakOverheadBytes为重新加载期间与当前词典同时存在的新结构和临时数据的估算字节数，与旧词典共享的部分不计入。
+ */
+public final class ReloadStats {
+
+	static final ReloadStats EMPTY = new ReloadStats(0, 0, 0, 0, 0, 0, 0);
+
+	//已执行的重新加载次数
+	private final long reloads;
+	//累计收到的变更通知数
+	private final long triggers;
+	//最近一次重新加载合并的通知数
+	private final int lastAbsorbedTriggers;
+	//最近一次重新加载涉及的远程词典地址数
+	private final int lastLocations;
+	//最近一次重新加载的耗时，毫秒
+	private final long lastReloadMillis;
+	//最近一次重新加载的峰值内存开销，估算值
+	private final long lastPeakOverheadBytes;
+	//历次重新加载中最大的峰值内存开销
+	private final long maxPeakOverheadBytes;
+
+	private ReloadStats(long reloads, long triggers, int lastAbsorbedTriggers, int lastLocations, long lastReloadMillis,
+			long lastPeakOverheadBytes, long maxPeakOverheadBytes) {
+		this.reloads = reloads;
+		this.triggers = triggers;
+		this.lastAbsorbedTriggers = lastAbsorbedTriggers;
+		this.lastLocations = lastLocations;
+		this.lastReloadMillis = lastReloadMillis;
+		this.lastPeakOverheadBytes = lastPeakOverheadBytes;
+		this.maxPeakOverheadBytes = maxPeakOverheadBytes;
+	}
+
+	/**
+	 * 在本统计的基础上记录一次重新加载
+	 */
+	ReloadStats next(int absorbedTriggers, int locations, long reloadMillis, long peakOverheadBytes) {
+		return new ReloadStats(reloads + 1, triggers + absorbedTriggers, absorbedTriggers, locations, reloadMillis,
+				peakOverheadBytes, Math.max(maxPeakOverheadBytes, peakOverheadBytes));
+	}
+
+	public long getReloads() {
+		return reloads;
+	}
+
+	public long getTriggers() {
+		return triggers;
+	}
+
+	public int getLastAbsorbedTriggers() {
+		return lastAbsorbedTriggers;
+	}
+
+	public int getLastLocations() {
+		return lastLocations;
+	}
+
+	public long getLastReloadMillis() {
+		return lastReloadMillis;
+	}
+
+	public long getLastPeakOverheadBytes() {
+		return lastPeakOverheadBytes;
+	}
+
+	public long getMaxPeakOverheadBytes() {
+		return maxPeakOverheadBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "reloads " + reloads + ", triggers " + triggers + ", last reload absorbed " + lastAbsorbedTriggers
+				+ " triggers from " + lastLocations + " locations in " + lastReloadMillis + " ms"
+				+ ", peak overhead " + lastPeakOverheadBytes + " bytes (max " + maxPeakOverheadBytes + " bytes)";
+	}
+}
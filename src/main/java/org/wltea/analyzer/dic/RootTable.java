@@ -0,0 +1,73 @@
+package org.wltea.analyzer.dic;
+
+/**
+ * 根节点分派表
+ *
+ * 按字符值直接查到从根节点出发的匹配状态，取代根节点上几千条出边的查找。
+ * 采用两级页表：高8位选页，低8位选页内位置；页内没有任何词首字时整页为null，
+ * 因此不可能作为词首的字符只需一次数组访问即可判定为不匹配。
+ */
+final class RootTable {
+
+	private static final int PAGE_BITS = 8;
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private final int[][] pages;
+
+	private RootTable(int[][] pages) {
+		this.pages = pages;
+	}
+
+	/**
+	 * 从根节点匹配一个字符
+	 * @param c
+	 * @return 匹配状态
+	 */
+	int probe(char c) {
+		int[] page = this.pages[c >>> PAGE_BITS];
+		return page == null ? DictTrie.UNMATCH : page[c & PAGE_MASK];
+	}
+
+	/**
+	 * 占用的堆内存字节数
+	 */
+	long ramBytesUsed() {
+		long bytes = 16 + 4L * this.pages.length;
+		for (int[] page : this.pages) {
+			if (page != null) {
+				bytes += 16 + 4L * PAGE_SIZE;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * 对全部字符预先从根节点匹配一次
+	 * @param root 从根节点匹配一个字符的方法
+	 * @return RootTable
+	 */
+	static RootTable build(RootProbe root) {
+		int[][] pages = new int[(Character.MAX_VALUE + 1) >>> PAGE_BITS][];
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			int state = root.probe((char) c);
+			if (DictTrie.isUnmatch(state)) {
+				continue;
+			}
+			int[] page = pages[c >>> PAGE_BITS];
+			if (page == null) {
+				page = new int[PAGE_SIZE];
+				pages[c >>> PAGE_BITS] = page;
+			}
+			page[c & PAGE_MASK] = state;
+		}
+		return new RootTable(pages);
+	}
+
+	/**
+	 * 从根节点匹配一个字符
+	 */
+	interface RootProbe {
+		int probe(char c);
+	}
+}
@@ -0,0 +1,210 @@
+package org.wltea.analyzer.dic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 停止词集合
+ *
+ * 停止词只有几十个短词，每个输出的词元都要判断一次，绝大多数判断结果为否。
+ * 先用词长位图和首字位图过滤，不可能是停止词的词元两次位运算即可排除；
+ * 通过过滤的再用最小完美哈希（hash-and-displace）定位到唯一的候选词逐字比较，不需要遍历词典树。
+ */
+final class StopWordSet {
+
+	//每个桶平均的词数
+	private static final int BUCKET_LOAD = 2;
+	//查找桶偏移量的最大尝试次数
+	private static final int MAX_SEED = 1 << 20;
+
+	//词长位图，长度超过63的词记在第63位
+	private final long lengths;
+	//首字位图
+	private final long[] firstChars;
+	//桶的偏移量
+	private final int[] seeds;
+	//哈希表，每个位置最多一个词
+	private final char[][] words;
+	//词数
+	private final int size;
+
+	private StopWordSet(long lengths, long[] firstChars, int[] seeds, char[][] words, int size) {
+		this.lengths = lengths;
+		this.firstChars = firstChars;
+		this.seeds = seeds;
+		this.words = words;
+		this.size = size;
+	}
+
+	/**
+	 * 检索字符区间是否为停止词
+	 * @param charArray
+	 * @param begin
+	 * @param length
+	 * @return boolean
+	 */
+	boolean contains(char[] charArray, int begin, int length) {
+		if ((this.lengths & lengthBit(length)) == 0) {
+			return false;
+		}
+		char c = charArray[begin];
+		if ((this.firstChars[c >>> 6] & (1L << c)) == 0) {
+			return false;
+		}
+		int h = hash(charArray, begin, length);
+		char[] word = this.words[slot(h, this.seeds[h & (this.seeds.length - 1)], this.words.length)];
+		if (word == null || word.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (word[i] != charArray[begin + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 词数
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * 最长的词长
+	 */
+	int maxLength() {
+		int maxLength = 0;
+		for (char[] word : this.words) {
+			if (word != null) {
+				maxLength = Math.max(maxLength, word.length);
+			}
+		}
+		return maxLength;
+	}
+
+	/**
+	 * 估算占用的堆内存字节数
+	 */
+	long ramBytesUsed() {
+		long bytes = 16 + 8L * this.firstChars.length + 16 + 4L * this.seeds.length + 16 + 4L * this.words.length;
+		for (char[] word : this.words) {
+			if (word != null) {
+				bytes += (16 + 2L * word.length + 7) & ~7L;
+			}
+		}
+		return bytes;
+	}
+
+	private static long lengthBit(int length) {
+		return length <= 0 ? 0 : 1L << Math.min(length, 63);
+	}
+
+	private static int hash(char[] charArray, int begin, int length) {
+		int h = length;
+		for (int i = begin; i < begin + length; i++) {
+			h = (h ^ charArray[i]) * 0x01000193;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * 词的哈希值与桶的偏移量混合后得到在哈希表中的位置
+	 */
+	private static int slot(int hash, int seed, int capacity) {
+		return mix(hash ^ seed * 0x9E3779B9) & (capacity - 1);
+	}
+
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * 将词典树中的停止词编译为集合
+	 * @param root 词典树根节点
+	 * @return StopWordSet
+	 */
+	static StopWordSet compile(DictSegment root) {
+		List<char[]> words = new ArrayList<char[]>();
+		collect(root, new char[16], 0, words);
+
+		int n = words.size();
+		//哈希表装载率不超过1/2，桶数为词数的1/BUCKET_LOAD，均取2的幂
+		int capacity = tableSizeFor(2 * n);
+		int bucketCount = tableSizeFor((n + BUCKET_LOAD - 1) / BUCKET_LOAD);
+
+		long lengths = 0;
+		long[] firstChars = new long[(Character.MAX_VALUE + 1) >>> 6];
+		List<List<char[]>> buckets = new ArrayList<List<char[]>>(bucketCount);
+		for (int i = 0; i < bucketCount; i++) {
+			buckets.add(new ArrayList<char[]>());
+		}
+		for (char[] word : words) {
+			lengths |= lengthBit(word.length);
+			firstChars[word[0] >>> 6] |= 1L << word[0];
+			buckets.get(hash(word, 0, word.length) & (bucketCount - 1)).add(word);
+		}
+
+		//词数多的桶先放置，为每个桶找到一个使桶内的词都落在空位置上的偏移量
+		Integer[] order = new Integer[bucketCount];
+		for (int i = 0; i < bucketCount; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+		int[] seeds = new int[bucketCount];
+		char[][] table = new char[capacity][];
+		int[] slots = new int[n];
+		for (int bucket : order) {
+			List<char[]> members = buckets.get(bucket);
+			if (members.isEmpty()) {
+				break;
+			}
+			seeds[bucket] = place(members, table, slots);
+		}
+		return new StopWordSet(lengths, firstChars, seeds, table, n);
+	}
+
+	private static int place(List<char[]> members, char[][] table, int[] slots) {
+		for (int seed = 1; seed < MAX_SEED; seed++) {
+			int placed = 0;
+			for (char[] word : members) {
+				int slot = slot(hash(word, 0, word.length), seed, table.length);
+				if (table[slot] != null) {
+					break;
+				}
+				table[slot] = word;
+				slots[placed++] = slot;
+			}
+			if (placed == members.size()) {
+				return seed;
+			}
+			for (int i = 0; i < placed; i++) {
+				table[slots[i]] = null;
+			}
+		}
+		throw new IllegalStateException("无法为停止词构造完美哈希");
+	}
+
+	private static void collect(DictSegment segment, char[] buffer, int depth, List<char[]> words) {
+		for (DictSegment child : segment.getChildren()) {
+			if (depth == buffer.length) {
+				buffer = Arrays.copyOf(buffer, depth << 1);
+			}
+			buffer[depth] = child.getNodeChar();
+			if (child.isWord()) {
+				words.add(Arrays.copyOf(buffer, depth + 1));
+			}
+			collect(child, buffer, depth + 1, words);
+		}
+	}
+
+	private static int tableSizeFor(int n) {
+		return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+	}
+}
@@ -0,0 +1,77 @@
+package org.wltea.analyzer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.plugin.analysis.ik.AnalysisIkPlugin;
+import org.wltea.analyzer.cfg.Configuration;
+
+/**
+ * 测试使用的配置
+ * 首次创建时把仓库config目录下的配置和词典复制到临时的ES目录，并由此初始化词典；同一JVM中的测试共用一个词典
+ */
+public final class TestConfiguration {
+
+	private static Path home;
+
+	private TestConfiguration() {
+	}
+
+	public static Configuration create() {
+		return create(Settings.EMPTY);
+	}
+
+	public static synchronized Configuration create(Settings settings) {
+		if (home == null) {
+			home = newHome();
+		}
+		return create(home, settings);
+	}
+
+	/**
+	 * 使用指定的ES目录，词典只在JVM中第一次创建配置时初始化
+	 */
+	public static Configuration create(Path home, Settings settings) {
+		return new Configuration(new Environment(Settings.builder().put("path.home", home).build(), null), settings);
+	}
+
+	/**
+	 * 仓库中的词典目录
+	 */
+	public static Path dictRoot() {
+		return Paths.get("config").toAbsolutePath();
+	}
+
+	/**
+	 * 新建临时的ES目录，复制仓库中的配置和词典，可在创建配置前修改其中的文件
+	 */
+	public static Path newHome() {
+		try {
+			Path dir = Files.createTempDirectory("ik-test");
+			Path dictDir = Files.createDirectories(dictDir(dir));
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(dictRoot())) {
+				for (Path file : files) {
+					if (Files.isRegularFile(file)) {
+						Files.copy(file, dictDir.resolve(file.getFileName()));
+					}
+				}
+			}
+			return dir;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * ES目录中的词典目录
+	 */
+	public static Path dictDir(Path home) {
+		return home.resolve("config").resolve(AnalysisIkPlugin.PLUGIN_NAME);
+	}
+}
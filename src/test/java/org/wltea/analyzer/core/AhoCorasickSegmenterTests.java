@@ -0,0 +1,59 @@
+package org.wltea.analyzer.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.elasticsearch.common.settings.Settings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.TestConfiguration;
+import org.wltea.analyzer.cfg.Configuration;
+import org.wltea.analyzer.dic.Dictionary;
+
+public class AhoCorasickSegmenterTests {
+
+	private static Configuration cjk;
+
+	private static Configuration ahoCorasick;
+
+	@BeforeClass
+	public static void init() {
+		cjk = TestConfiguration.create();
+		ahoCorasick = TestConfiguration.create(Settings.builder().put("use_aho_corasick", "true").build());
+	}
+
+	@Test
+	public void sameLexemesAsCjkSegmenter() throws IOException {
+		String text = "中华人民共和国国歌，IK Analyzer是一个结合词典分词和文法分词的中文分词开源工具包。"
+				+ "它使用了全新的正向迭代最细粒度切分算法，一百二十五个人在北京市长安街散步。";
+		assertEquals(segment(text, cjk), segment(text, ahoCorasick));
+	}
+
+	/**
+	 * 屏蔽词条后，被屏蔽的词经过的节点仍可到达，自动机也要为这些节点建立失败链接
+	 */
+	@Test
+	public void sameLexemesAfterDisablingWord() throws IOException {
+		Dictionary.getSingleton().addWords(Arrays.asList("氪氙", "氡", "氪氙氡氦"));
+		Dictionary.getSingleton().disableWords(Collections.singletonList("氪氙氡氦"));
+		List<String> expected = segment("氪氙氡", cjk);
+		assertTrue(expected.toString(), expected.contains("2-3 : 氡 : \tCN_WORD"));
+		assertEquals(expected, segment("氪氙氡", ahoCorasick));
+	}
+
+	private static List<String> segment(String text, Configuration configuration) throws IOException {
+		IKSegmenter segmenter = new IKSegmenter(new StringReader(text), configuration);
+		List<String> lexemes = new ArrayList<String>();
+		for (Lexeme lexeme = segmenter.next(); lexeme != null; lexeme = segmenter.next()) {
+			lexemes.add(lexeme.toString());
+		}
+		return lexemes;
+	}
+}
@@ -0,0 +1,118 @@
+package org.wltea.analyzer.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.common.settings.Settings;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wltea.analyzer.TestConfiguration;
+import org.wltea.analyzer.cfg.Configuration;
+
+/**
+ * 分词的基准测试
+ *
+ * segment：每次操作切分整段文本，tokens一项为每秒输出的词元数；
+ * stopwords为true时在自带的英文停止词之外配置extra_stopword.dic中的中文停止词，为false时不配置任何停止词，
+ * 两者的差别即停止词过滤的开销（被过滤的词元不计入）。
+ * next：每次操作取一个词元，加上-prof gc时gc.alloc.rate.norm即每个词元分配的字节数。
+ * 词典是单例，每组参数在单独的JVM中运行。
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main SegmenterBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmenterBenchmark {
+
+	private static final String TEXT = "IK Analyzer是一个结合词典分词和文法分词的中文分词开源工具包。"
+			+ "它使用了全新的正向迭代最细粒度切分算法，支持细粒度和智能分词两种切分模式。"
+			+ "一百二十五个人在北京市长安街散步，他们说这是2019年最好的天气，但是明天还会下雨。"
+			+ "The quick brown fox jumps over the lazy dog, and it is not the end of the story. "
+			+ "中华人民共和国国歌是义勇军进行曲，由田汉作词、聂耳作曲，于1935年被作为电影的主题歌。";
+
+	@Param({"true", "false"})
+	public boolean stopwords;
+
+	@Param({"false", "true"})
+	public boolean useSmart;
+
+	private Configuration configuration;
+
+	private IKSegmenter segmenter;
+
+	/**
+	 * 输出的词元数
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Tokens {
+
+		public long tokens;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			this.tokens = 0;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		Path home = TestConfiguration.newHome();
+		Path dictDir = TestConfiguration.dictDir(home);
+		if (stopwords) {
+			Path cfg = dictDir.resolve("IKAnalyzer.cfg.xml");
+			String content = new String(Files.readAllBytes(cfg), StandardCharsets.UTF_8);
+			String entry = "<entry key=\"ext_stopwords\"></entry>";
+			if (!content.contains(entry)) {
+				throw new IllegalStateException("ext_stopwords is already configured in " + cfg);
+			}
+			content = content.replace(entry, "<entry key=\"ext_stopwords\">extra_stopword.dic</entry>");
+			Files.write(cfg, content.getBytes(StandardCharsets.UTF_8));
+		} else {
+			Files.write(dictDir.resolve("stopword.dic"), new byte[0]);
+		}
+		this.configuration = TestConfiguration.create(home, Settings.builder().put("use_smart", useSmart).build());
+		this.segmenter = new IKSegmenter(new StringReader(TEXT), this.configuration);
+	}
+
+	@Benchmark
+	public Lexeme segment(Tokens tokens) throws IOException {
+		this.segmenter.reset(new StringReader(TEXT));
+		Lexeme last = null;
+		for (Lexeme lexeme = this.segmenter.next(); lexeme != null; lexeme = this.segmenter.next()) {
+			tokens.tokens++;
+			last = lexeme;
+		}
+		return last;
+	}
+
+	@Benchmark
+	public Lexeme next() throws IOException {
+		Lexeme lexeme = this.segmenter.next();
+		if (lexeme == null) {
+			this.segmenter.reset(new StringReader(TEXT));
+			lexeme = this.segmenter.next();
+		}
+		return lexeme;
+	}
+}
@@ -0,0 +1,246 @@
+package org.wltea.analyzer.dic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 用本地的HTTP服务模拟词典服务器，远程词典的HEAD请求一律返回304，只统计每个地址被检查的次数
+ */
+public class ChangeChannelTests {
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private ScheduledExecutorService channelExecutor;
+
+	private ScheduledExecutorService monitorExecutor;
+
+	private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<String, AtomicInteger>();
+
+	//通道收到的请求头，按请求顺序
+	private final List<Map<String, List<String>>> channelRequests = new CopyOnWriteArrayList<Map<String, List<String>>>();
+
+	private String dictA;
+
+	private String dictB;
+
+	private ChangeChannel channel;
+
+	private Monitor monitorA;
+
+	@Before
+	public void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.createContext("/dict/", exchange -> {
+			polls.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+			exchange.sendResponseHeaders(304, -1);
+			exchange.close();
+		});
+		server.start();
+		String root = "http://127.0.0.1:" + server.getAddress().getPort();
+		dictA = root + "/dict/a.dic";
+		dictB = root + "/dict/b.dic";
+		channelExecutor = Executors.newSingleThreadScheduledExecutor();
+		monitorExecutor = Executors.newScheduledThreadPool(2);
+	}
+
+	@After
+	public void stop() {
+		channelExecutor.shutdownNow();
+		monitorExecutor.shutdownNow();
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	/**
+	 * SSE：连通时检查全部远程词典；事件的data可有多行，注释行只作心跳；连接断开后带上最后一个事件的id重新连接
+	 */
+	@Test
+	public void serverSentEvents() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger connections = new AtomicInteger();
+		startChannel(exchange -> {
+			if (connections.incrementAndGet() > 1) {
+				reply(exchange, 503, null, null);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream out = exchange.getResponseBody();
+			write(out, ": heartbeat\n\n");
+			write(out, "id: 7\ndata: " + dictA + "\n\n");
+			write(out, "data: " + dictB + "\ndata: " + dictA + "\n\n");
+			write(out, ": ping\n\n");
+			await(release);
+			exchange.close();
+		});
+
+		// 连通时各检查一次，第一个事件检查a，第二个事件检查a和b
+		await(() -> polls("/dict/a.dic") == 3 && polls("/dict/b.dic") == 2);
+		assertEquals(2, channel.getEvents());
+		assertTrue(channel.isConnected());
+
+		release.countDown();
+		await(() -> channelRequests.size() >= 2);
+		assertFalse(channel.isConnected());
+		assertEquals(Collections.singletonList("7"), channelRequests.get(1).get("Last-event-id"));
+	}
+
+	/**
+	 * 长轮询：304和204表示没有变化，200的响应内容为变化的地址，ETag在下一次请求中作为If-None-Match发送
+	 */
+	@Test
+	public void longPolling() throws Exception {
+		AtomicInteger requests = new AtomicInteger();
+		startChannel(exchange -> {
+			switch (requests.incrementAndGet()) {
+			case 1:
+				reply(exchange, 304, null, null);
+				break;
+			case 2:
+				reply(exchange, 204, null, null);
+				break;
+			case 3:
+				reply(exchange, 200, "v3", dictB + "\n");
+				break;
+			default:
+				reply(exchange, 304, null, null);
+			}
+		});
+
+		await(() -> channelRequests.size() >= 4);
+		assertTrue(channel.isConnected());
+		assertEquals(1, channel.getEvents());
+		// 连通时各检查一次，200的响应只检查b
+		assertEquals(1, polls("/dict/a.dic"));
+		assertEquals(2, polls("/dict/b.dic"));
+		assertEquals(null, channelRequests.get(2).get("If-none-match"));
+		assertEquals(Collections.singletonList("v3"), channelRequests.get(3).get("If-none-match"));
+	}
+
+	/**
+	 * 通道不可用时按退避间隔重新连接，远程词典恢复轮询
+	 */
+	@Test
+	public void fallBackToPollingWhenUnavailable() throws Exception {
+		startChannel(exchange -> reply(exchange, 503, null, null));
+
+		await(() -> channelRequests.size() >= 3);
+		assertFalse(channel.isConnected());
+		assertEquals(0, channel.getEvents());
+		monitorA.run();
+		assertEquals(1, polls("/dict/a.dic"));
+	}
+
+	/**
+	 * 通道连通期间远程词典的定时轮询不发请求，通道断开后恢复
+	 */
+	@Test
+	public void monitorSkipsPollingWhileConnected() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger connections = new AtomicInteger();
+		startChannel(exchange -> {
+			if (connections.incrementAndGet() > 1) {
+				reply(exchange, 503, null, null);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0);
+			write(exchange.getResponseBody(), ": heartbeat\n\n");
+			await(release);
+			exchange.close();
+		});
+
+		await(() -> channel.isConnected() && polls("/dict/a.dic") == 1);
+		monitorA.run();
+		assertEquals(1, polls("/dict/a.dic"));
+
+		release.countDown();
+		await(() -> !channel.isConnected());
+		monitorA.run();
+		assertEquals(2, polls("/dict/a.dic"));
+	}
+
+	private void startChannel(HttpHandler handler) {
+		server.createContext("/changes", exchange -> {
+			channelRequests.add(new ConcurrentHashMap<String, List<String>>(exchange.getRequestHeaders()));
+			handler.handle(exchange);
+		});
+		List<Monitor> monitors = new ArrayList<Monitor>();
+		String location = "http://127.0.0.1:" + server.getAddress().getPort() + "/changes";
+		channel = new ChangeChannel(location, channelExecutor, new PollPolicy(100, 0, 100, 1), 10000, monitors);
+		// 轮询间隔足够长，测试期间只有直接调用run时才轮询
+		PollPolicy policy = new PollPolicy(60000, 0, 60000, 3);
+		monitorA = new Monitor(null, dictA, "main", monitorExecutor, policy, channel);
+		monitors.add(monitorA);
+		monitors.add(new Monitor(null, dictB, "main", monitorExecutor, policy, channel));
+		channel.start();
+	}
+
+	private int polls(String path) {
+		AtomicInteger count = polls.get(path);
+		return count == null ? 0 : count.get();
+	}
+
+	private static void reply(HttpExchange exchange, int code, String eTag, String body) throws IOException {
+		if (eTag != null) {
+			exchange.getResponseHeaders().set("ETag", eTag);
+		}
+		byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			exchange.getResponseBody().write(bytes);
+		}
+		exchange.close();
+	}
+
+	private static void write(OutputStream out, String data) throws IOException {
+		out.write(data.getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("timed out", System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+}
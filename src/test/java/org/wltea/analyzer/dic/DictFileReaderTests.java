@@ -0,0 +1,80 @@
+package org.wltea.analyzer.dic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DictFileReaderTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void bomAndCrlf() throws IOException {
+		Path file = write("\uFEFF中华人民共和国\r\n  国歌 \r\n\r\n\t\r\nIK Analyzer\r人民\n最后一行");
+		assertEquals(lines(file), words(file));
+		assertEquals(Arrays.asList("中华人民共和国", "国歌", "IK Analyzer", "人民", "最后一行"), words(file));
+	}
+
+	/**
+	 * 词条和多字节字符跨越解码缓冲区的边界，以及超过缓冲区长度的一行
+	 */
+	@Test
+	public void acrossBufferBoundary() throws IOException {
+		StringBuilder builder = new StringBuilder("\uFEFF");
+		for (int i = 0; i < 20000; i++) {
+			builder.append("词条").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		for (int i = 0; i < 10000; i++) {
+			builder.append("长");
+		}
+		builder.append("\r\n");
+		Path file = write(builder.toString());
+		assertEquals(lines(file), words(file));
+	}
+
+	private Path write(String content) throws IOException {
+		Path file = folder.newFile().toPath();
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static List<String> words(Path file) throws IOException {
+		List<String> words = new ArrayList<String>();
+		for (char[] word : DictFileReader.readWords(file)) {
+			words.add(new String(word));
+		}
+		return words;
+	}
+
+	/**
+	 * 原来逐行读取词典的方式
+	 */
+	private static List<String> lines(Path file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (lines.isEmpty() && line.startsWith("\uFEFF")) {
+					line = line.substring(1);
+				}
+				line = line.trim();
+				if (!line.isEmpty()) {
+					lines.add(line);
+				}
+			}
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,105 @@
+package org.wltea.analyzer.dic;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wltea.analyzer.TestConfiguration;
+
+/**
+ * 主词典查找的基准测试，比较DictSegment与编译后的双数组Trie、DAWG、FST
+ *
+ * 每次操作与CJKSegmenter相同，从一个词段的首字符开始逐字符匹配，直到不再是前缀；
+ * 词段从main.dic中随机抽取，一半把最后一个字符换掉，成为不在词典中的词段。
+ * DictSegment重用同一个Hit，加上-prof gc时gc.alloc.rate.norm即查找子节点本身分配的字节数。
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main DictLookupBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DictLookupBenchmark {
+
+	private static final int SAMPLES = 4096;
+
+	@Param({"segment", "dat", "dawg", "fst"})
+	public String engine;
+
+	private DictSegment segment;
+
+	private DictTrie trie;
+
+	private Hit hit;
+
+	private char[][] samples;
+
+	@Setup
+	public void setup() throws IOException {
+		List<char[]> words = DictFileReader.readWords(TestConfiguration.dictRoot().resolve(Dictionary.PATH_DIC_MAIN));
+		Random random = new Random(42);
+		this.samples = new char[SAMPLES][];
+		for (int i = 0; i < SAMPLES; i++) {
+			char[] word = words.get(random.nextInt(words.size())).clone();
+			if ((i & 1) == 1) {
+				word[word.length - 1]++;
+			}
+			this.samples[i] = word;
+		}
+		this.segment = DictSegment.build(words);
+		this.hit = new Hit();
+		if ("dat".equals(engine)) {
+			this.trie = DoubleArrayTrie.compile(this.segment);
+		} else if ("dawg".equals(engine)) {
+			this.trie = DawgTrie.compile(this.segment);
+		} else if ("fst".equals(engine)) {
+			this.trie = FstTrie.compile(this.segment);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public int lookup() {
+		int matched = 0;
+		for (char[] word : this.samples) {
+			if (this.trie == null ? this.matchSegment(word) : this.matchTrie(word)) {
+				matched++;
+			}
+		}
+		return matched;
+	}
+
+	private boolean matchSegment(char[] word) {
+		Hit hit = this.segment.match(word, 0, 1, this.hit);
+		int i = 1;
+		for (; i < word.length && hit.isPrefix(); i++) {
+			hit = hit.getMatchedDictSegment().match(word, i, 1, hit);
+		}
+		return i == word.length && hit.isMatch();
+	}
+
+	private boolean matchTrie(char[] word) {
+		int state = this.trie.probe(word[0]);
+		int i = 1;
+		for (; i < word.length && DictTrie.isPrefix(state); i++) {
+			state = this.trie.probe(state, word[i]);
+		}
+		return i == word.length && DictTrie.isMatch(state);
+	}
+}
@@ -0,0 +1,81 @@
+package org.wltea.analyzer.dic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wltea.analyzer.TestConfiguration;
+
+public class DictSnapshotTests {
+
+	private static final long STAMP = 0x1234567890abcdefL;
+
+	private static List<char[]> words;
+
+	private static DoubleArrayTrie trie;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void init() throws IOException {
+		words = DictFileReader.readWords(TestConfiguration.dictRoot().resolve(Dictionary.PATH_DIC_MAIN));
+		trie = DoubleArrayTrie.compile(DictSegment.build(words));
+	}
+
+	@Test
+	public void writeAndOpen() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("snapshot").resolve(Dictionary.SNAPSHOT_MAIN);
+		DictSnapshot.write(file, STAMP, trie);
+		MappedDoubleArrayTrie mapped = DictSnapshot.open(file, STAMP);
+		assertNotNull(mapped);
+		for (char[] word : words) {
+			assertEquals(new String(word), trie.probe(word, 0, word.length), mapped.probe(word, 0, word.length));
+		}
+		assertEquals(wordSet(trie), wordSet(mapped));
+	}
+
+	@Test
+	public void staleSnapshotIsIgnored() throws IOException {
+		Path file = folder.getRoot().toPath().resolve(Dictionary.SNAPSHOT_MAIN);
+		DictSnapshot.write(file, STAMP, trie);
+		assertNull(DictSnapshot.open(file, STAMP + 1));
+	}
+
+	@Test
+	public void truncatedSnapshotIsIgnored() throws IOException {
+		Path file = folder.getRoot().toPath().resolve(Dictionary.SNAPSHOT_MAIN);
+		DictSnapshot.write(file, STAMP, trie);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 4);
+		}
+		assertNull(DictSnapshot.open(file, STAMP));
+	}
+
+	@Test
+	public void missingSnapshotIsIgnored() throws IOException {
+		Path file = folder.getRoot().toPath().resolve(Dictionary.SNAPSHOT_MAIN);
+		assertNull(DictSnapshot.open(file, STAMP));
+		assertFalse(Files.exists(file));
+	}
+
+	private static Set<String> wordSet(DictTrie trie) {
+		Set<String> set = new HashSet<String>();
+		trie.forEachWord(word -> set.add(new String(word)));
+		return set;
+	}
+}
@@ -0,0 +1,151 @@
+package org.wltea.analyzer.dic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wltea.analyzer.TestConfiguration;
+
+/**
+ * 编译后的词典与DictSegment在自带词典上的匹配结果逐字符比较
+ */
+public class DictTrieTests {
+
+	private static List<char[]> words;
+
+	private static DictSegment segment;
+
+	private static DoubleArrayTrie doubleArrayTrie;
+
+	@BeforeClass
+	public static void init() throws IOException {
+		words = DictFileReader.readWords(TestConfiguration.dictRoot().resolve(Dictionary.PATH_DIC_MAIN));
+		words.addAll(DictFileReader.readWords(TestConfiguration.dictRoot().resolve(Dictionary.PATH_DIC_QUANTIFIER)));
+		segment = DictSegment.build(words);
+		doubleArrayTrie = DoubleArrayTrie.compile(segment);
+	}
+
+	@Test
+	public void doubleArrayTrieMatchesDictSegment() {
+		assertSameStates(doubleArrayTrie);
+	}
+
+	/**
+	 * 在副本上增删词条，与重新编译的结果比较；新词多为已有词条加一个字符，迫使子节点较多的节点迁移
+	 */
+	@Test
+	public void updatedDoubleArrayTrieMatchesRecompiled() {
+		Random random = new Random(42);
+		List<char[]> enabled = new ArrayList<char[]>();
+		for (int i = 0; i < 2048; i++) {
+			char[] word = words.get(random.nextInt(words.size()));
+			word = Arrays.copyOf(word, word.length + 1);
+			word[word.length - 1] = (char) ('\u4e00' + random.nextInt(0x5000));
+			enabled.add(word);
+		}
+		List<char[]> disabled = new ArrayList<char[]>();
+		for (int i = 0; i < 256; i++) {
+			disabled.add(words.get(random.nextInt(words.size())));
+		}
+		DoubleArrayTrie updated = doubleArrayTrie.copyWith(enabled, Collections.<char[]>emptyList()).copyWith(Collections.<char[]>emptyList(), disabled);
+		DoubleArrayTrie recompiled = DoubleArrayTrie.compile(segment.copyWith(enabled, 1).copyWith(disabled, 0));
+		List<char[]> all = new ArrayList<char[]>(words);
+		all.addAll(enabled);
+		for (char[] word : all) {
+			for (int length = 1; length <= word.length; length++) {
+				String message = new String(word, 0, length);
+				int expected = recompiled.probe(word, 0, length);
+				int actual = updated.probe(word, 0, length);
+				assertEquals(message, DictTrie.isMatch(expected), DictTrie.isMatch(actual));
+				assertEquals(message, DictTrie.isPrefix(expected), DictTrie.isPrefix(actual));
+			}
+		}
+	}
+
+	@Test
+	public void dawgMatchesDictSegment() {
+		assertSameStates(DawgTrie.compile(segment));
+	}
+
+	@Test
+	public void fstMatchesDictSegment() {
+		assertSameStates(FstTrie.compile(segment));
+	}
+
+	@Test
+	public void automatonMatchesDictSegment() {
+		assertSameWords(AhoCorasickAutomaton.build(doubleArrayTrie));
+	}
+
+	/**
+	 * DAWG上构建自动机时另行编译双数组Trie，结果应相同
+	 */
+	@Test
+	public void automatonOnDawgMatchesDictSegment() {
+		assertSameWords(AhoCorasickAutomaton.build(DawgTrie.compile(segment)));
+	}
+
+	/**
+	 * 每个词条的各个前缀，以及把最后一个字符换成其他字符后的词段，逐字符比较匹配状态
+	 */
+	private static void assertSameStates(DictTrie trie) {
+		for (char[] word : words) {
+			assertSameStates(trie, word);
+			char[] miss = word.clone();
+			miss[miss.length - 1]++;
+			assertSameStates(trie, miss);
+		}
+	}
+
+	private static void assertSameStates(DictTrie trie, char[] word) {
+		Hit hit = segment.match(word, 0, 1);
+		int state = trie.probe(word[0]);
+		for (int i = 1; ; i++) {
+			String message = new String(word, 0, i);
+			assertEquals(message, hit.isMatch(), DictTrie.isMatch(state));
+			assertEquals(message, hit.isPrefix(), DictTrie.isPrefix(state));
+			if (i == word.length || !hit.isPrefix()) {
+				break;
+			}
+			hit = hit.getMatchedDictSegment().match(word, i, 1, hit);
+			state = trie.probe(state, word[i]);
+		}
+	}
+
+	/**
+	 * 在由部分词条拼接成的文本上，自动机在每个位置输出的词与DictSegment逐个长度匹配的结果相同
+	 */
+	private static void assertSameWords(AhoCorasickAutomaton automaton) {
+		StringBuilder builder = new StringBuilder();
+		int maxLength = 0;
+		for (int i = 0; i < words.size(); i++) {
+			maxLength = Math.max(maxLength, words.get(i).length);
+			if (i % 97 == 0) {
+				builder.append(words.get(i));
+			}
+		}
+		char[] text = builder.toString().toCharArray();
+		int node = AhoCorasickAutomaton.ROOT;
+		for (int end = 0; end < text.length; end++) {
+			node = automaton.next(node, text[end]);
+			List<Integer> actual = new ArrayList<Integer>();
+			for (int word = automaton.firstOutput(node); word != AhoCorasickAutomaton.ROOT; word = automaton.nextOutput(word)) {
+				actual.add(automaton.length(word));
+			}
+			List<Integer> expected = new ArrayList<Integer>();
+			for (int length = Math.min(end + 1, maxLength); length > 0; length--) {
+				if (segment.match(text, end + 1 - length, length).isMatch()) {
+					expected.add(length);
+				}
+			}
+			assertEquals(new String(text, 0, end + 1), expected, actual);
+		}
+	}
+}
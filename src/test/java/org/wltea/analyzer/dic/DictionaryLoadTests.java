@@ -0,0 +1,75 @@
+package org.wltea.analyzer.dic;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AllPermission;
+import java.security.CodeSource;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.junit.Assume;
+import org.junit.Test;
+import org.wltea.analyzer.TestConfiguration;
+import org.wltea.analyzer.cfg.Configuration;
+
+public class DictionaryLoadTests {
+
+	/**
+	 * 安装SecurityManager后在加载线程池中加载词典
+	 * 策略授予所有代码全部权限，但ForkJoinPool默认的工作线程继承的上下文没有读文件的权限，与Elasticsearch节点中的情况相同
+	 */
+	@Test
+	public void loadUnderSecurityManager() throws Exception {
+		Path home = TestConfiguration.newHome();
+		Path cfg = TestConfiguration.dictDir(home).resolve("IKAnalyzer.cfg.xml");
+		String content = new String(Files.readAllBytes(cfg), StandardCharsets.UTF_8)
+				.replace("<entry key=\"ext_dict\"></entry>", "<entry key=\"ext_dict\">extra_single_word_low_freq.dic</entry>");
+		Files.write(cfg, content.getBytes(StandardCharsets.UTF_8));
+		Configuration configuration = Configuration.forNode(new Environment(Settings.builder().put("path.home", home).build(), null));
+		Dictionary dictionary = new Dictionary(configuration);
+
+		Policy policy = Policy.getPolicy();
+		Policy.setPolicy(new AllPermissionPolicy());
+		try {
+			System.setSecurityManager(new SecurityManager());
+		} catch (UnsupportedOperationException e) {
+			Policy.setPolicy(policy);
+			Assume.assumeNoException(e);
+		}
+		try {
+			dictionary.load();
+		} finally {
+			System.setSecurityManager(null);
+			Policy.setPolicy(policy);
+		}
+
+		DictionarySnapshot snapshot = dictionary.getSnapshot();
+		char[] word = "中华人民共和国".toCharArray();
+		assertTrue(DictTrie.isMatch(snapshot.getMainTrie().probe(word, 0, word.length)));
+		char[] stopWord = "the".toCharArray();
+		assertTrue(snapshot.isStopWord(stopWord, 0, stopWord.length));
+	}
+
+	private static class AllPermissionPolicy extends Policy {
+
+		@Override
+		public PermissionCollection getPermissions(CodeSource codesource) {
+			Permissions permissions = new Permissions();
+			permissions.add(new AllPermission());
+			return permissions;
+		}
+
+		@Override
+		public boolean implies(ProtectionDomain domain, Permission permission) {
+			return true;
+		}
+	}
+}